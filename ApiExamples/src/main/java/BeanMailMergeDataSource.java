@@ -0,0 +1,204 @@
+//////////////////////////////////////////////////////////////////////////
+// Copyright (c) 2001-2018 Aspose Pty Ltd. All Rights Reserved.
+//
+// This file is part of Aspose.Words. The source code in this file
+// is only intended as a supplement to the documentation, and is provided
+// "as is", without warranty of any kind, either expressed or implied.
+//////////////////////////////////////////////////////////////////////////
+
+import com.aspose.words.IMailMergeDataSource;
+import com.aspose.words.ref.Ref;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * A mail merge data source over a list of plain Java objects.
+ * <p>
+ * Every public getter of the record class becomes a merge field named after the property,
+ * e.g. getFullName() is merged into the FullName field. The getters of a class are resolved to
+ * method handles once and cached, so looking up a field is a hash map access followed by a direct
+ * method handle call. Properties that return a collection are exposed as child data sources for
+ * nested regions. A region is matched to a property by its name, or by its name followed by "s"
+ * (the Order region is filled from getOrders()).
+ */
+public class BeanMailMergeDataSource<T> implements IMailMergeDataSource
+{
+    public BeanMailMergeDataSource(List<? extends T> records, String tableName)
+    {
+        mRecords = records;
+        mTableName = tableName;
+
+        // When the data source is initialized, it must be positioned before the first record.
+        mRecordIndex = -1;
+    }
+
+    /**
+     * The name of the data source. Used by Aspose.Words only when executing mail merge with repeatable regions.
+     */
+    public String getTableName()
+    {
+        return mTableName;
+    }
+
+    /**
+     * Aspose.Words calls this method to get a value for every data field.
+     */
+    public boolean getValue(String fieldName, Ref<Object> fieldValue) throws Exception
+    {
+        T record = mRecords.get(mRecordIndex);
+        MethodHandle accessor = findAccessor(record.getClass(), fieldName);
+
+        if (accessor == null)
+        {
+            // A field with this name was not found,
+            // return false to the Aspose.Words mail merge engine.
+            return false;
+        }
+
+        fieldValue.set(invoke(accessor, record));
+        return true;
+    }
+
+    /**
+     * A standard implementation for moving to a next record in a collection.
+     */
+    public boolean moveNext()
+    {
+        if (!isEof()) mRecordIndex++;
+
+        return (!isEof());
+    }
+
+    /**
+     * Returns the collection property of the current record that matches the region name.
+     */
+    public IMailMergeDataSource getChildDataSource(String tableName) throws Exception
+    {
+        T record = mRecords.get(mRecordIndex);
+        Class<?> recordClass = record.getClass();
+
+        MethodHandle accessor = findAccessor(recordClass, tableName);
+        if (accessor == null)
+            accessor = findAccessor(recordClass, tableName + "s");
+        if (accessor == null)
+            return null;
+
+        Object value = invoke(accessor, record);
+        if (value instanceof List)
+            return new BeanMailMergeDataSource<Object>((List<?>) value, tableName);
+        if (value instanceof Collection)
+            return new BeanMailMergeDataSource<Object>(new ArrayList<Object>((Collection<?>) value), tableName);
+
+        return null;
+    }
+
+    private boolean isEof()
+    {
+        return (mRecordIndex >= mRecords.size());
+    }
+
+    /**
+     * Returns the cached accessor for the property, or null if the class has no such property.
+     * Merge field names are case insensitive, so an exact match is tried first and then an upper case one.
+     */
+    private static MethodHandle findAccessor(Class<?> recordClass, String propertyName)
+    {
+        Map<String, MethodHandle> accessors = ACCESSORS.get(recordClass);
+
+        MethodHandle accessor = accessors.get(propertyName);
+        if (accessor == null)
+            accessor = accessors.get(propertyName.toUpperCase(Locale.ROOT));
+
+        return accessor;
+    }
+
+    private static Object invoke(MethodHandle accessor, Object record) throws Exception
+    {
+        try
+        {
+            return (Object) accessor.invokeExact(record);
+        }
+        catch (Exception | Error e)
+        {
+            throw e;
+        }
+        catch (Throwable e)
+        {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Builds the accessor table of a class: every public, non-static, parameterless getX or isX method
+     * converted to a method handle of type (Object)Object.
+     */
+    private static Map<String, MethodHandle> createAccessors(Class<?> recordClass)
+    {
+        Map<String, MethodHandle> accessors = new HashMap<String, MethodHandle>();
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+        MethodType accessorType = MethodType.methodType(Object.class, Object.class);
+
+        for (Method method : recordClass.getMethods())
+        {
+            if (Modifier.isStatic(method.getModifiers()) || method.getParameterTypes().length != 0 ||
+                    method.getReturnType() == void.class || method.getDeclaringClass() == Object.class)
+                continue;
+
+            String propertyName = getPropertyName(method);
+            if (propertyName == null)
+                continue;
+
+            try
+            {
+                // Public methods of non-public classes are only accessible this way.
+                method.setAccessible(true);
+                MethodHandle accessor = lookup.unreflect(method).asType(accessorType);
+
+                accessors.put(propertyName, accessor);
+                accessors.put(propertyName.toUpperCase(Locale.ROOT), accessor);
+            }
+            catch (IllegalAccessException | SecurityException e)
+            {
+                // The getter cannot be called from here, so the field stays unmerged.
+            }
+        }
+
+        return accessors;
+    }
+
+    private static String getPropertyName(Method method)
+    {
+        String name = method.getName();
+
+        if (name.startsWith("get") && name.length() > 3)
+            return name.substring(3);
+        if (name.startsWith("is") && name.length() > 2 &&
+                (method.getReturnType() == boolean.class || method.getReturnType() == Boolean.class))
+            return name.substring(2);
+
+        return null;
+    }
+
+    private static final ClassValue<Map<String, MethodHandle>> ACCESSORS = new ClassValue<Map<String, MethodHandle>>()
+    {
+        @Override
+        protected Map<String, MethodHandle> computeValue(Class<?> type)
+        {
+            return createAccessors(type);
+        }
+    };
+
+    private final List<? extends T> mRecords;
+    private final String mTableName;
+    private int mRecordIndex;
+}
@@ -0,0 +1,283 @@
+//////////////////////////////////////////////////////////////////////////
+// Copyright (c) 2001-2018 Aspose Pty Ltd. All Rights Reserved.
+//
+// This file is part of Aspose.Words. The source code in this file
+// is only intended as a supplement to the documentation, and is provided
+// "as is", without warranty of any kind, either expressed or implied.
+//////////////////////////////////////////////////////////////////////////
+
+import com.aspose.words.Document;
+
+import java.awt.*;
+import java.awt.geom.Point2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * Renders thumbnails of all pages of a document into one PNG image.
+ * <p>
+ * Thumbnails are laid out in rows of a fixed number of columns. Every page keeps its own size, the columns are
+ * as wide as the widest thumbnail and each row is as high as the highest thumbnail in it. The sheet is rendered
+ * one row at a time into a strip image and every strip is compressed into the PNG stream before the next one is
+ * rendered, so memory use depends on the size of a single row and not on the number of pages.
+ */
+public class ContactSheetRenderer
+{
+    /**
+     * @param doc     The document to render.
+     * @param columns The number of thumbnails in a row.
+     * @param scale   The zoom of the thumbnails, e.g. 0.25 for a quarter of the page size.
+     */
+    public ContactSheetRenderer(Document doc, int columns, float scale) throws Exception
+    {
+        if (columns < 1)
+            throw new IllegalArgumentException("The number of columns must be positive.");
+
+        mDocument = doc;
+        mColumns = columns;
+        mScale = scale;
+
+        int pageCount = doc.getPageCount();
+        mThumbSizes = new Dimension[pageCount];
+        for (int i = 0; i < pageCount; i++)
+        {
+            mThumbSizes[i] = doc.getPageInfo(i).getSizeInPixels(scale, RESOLUTION);
+            mColumnWidth = Math.max(mColumnWidth, mThumbSizes[i].width);
+        }
+
+        int rowCount = (pageCount + columns - 1) / columns;
+        mRowHeights = new int[rowCount];
+        for (int i = 0; i < pageCount; i++)
+            mRowHeights[i / columns] = Math.max(mRowHeights[i / columns], mThumbSizes[i].height);
+    }
+
+    /**
+     * Gets the size of the whole sheet in pixels.
+     */
+    public Dimension getSheetSize()
+    {
+        int height = 0;
+        for (int rowHeight : mRowHeights)
+            height += rowHeight;
+
+        return new Dimension(mColumnWidth * Math.min(mColumns, Math.max(1, mThumbSizes.length)), height);
+    }
+
+    /**
+     * Renders the sheet and writes it to the stream as a PNG image. The stream is not closed.
+     */
+    public void save(OutputStream stream) throws Exception
+    {
+        Dimension sheetSize = getSheetSize();
+        if (sheetSize.width == 0 || sheetSize.height == 0)
+            throw new IllegalStateException("The document has no pages to render.");
+
+        int maxRowHeight = 0;
+        for (int rowHeight : mRowHeights)
+            maxRowHeight = Math.max(maxRowHeight, rowHeight);
+
+        // A single strip is reused for all rows, only its upper part is written for lower rows.
+        BufferedImage strip = new BufferedImage(sheetSize.width, maxRowHeight, BufferedImage.TYPE_INT_RGB);
+        PngStripWriter writer = new PngStripWriter(stream, sheetSize.width, sheetSize.height);
+        try
+        {
+            writeRows(strip, writer, sheetSize.width, maxRowHeight);
+            writer.finish();
+        }
+        finally
+        {
+            writer.close();
+        }
+    }
+
+    private void writeRows(BufferedImage strip, PngStripWriter writer, int sheetWidth, int maxRowHeight) throws Exception
+    {
+        for (int row = 0; row < mRowHeights.length; row++)
+        {
+            Graphics2D gr = strip.createGraphics();
+            try
+            {
+                gr.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+
+                // Fill the "paper" with white.
+                gr.setColor(Color.white);
+                gr.fillRect(0, 0, sheetWidth, maxRowHeight);
+
+                int firstPage = row * mColumns;
+                int lastPage = Math.min(firstPage + mColumns, mThumbSizes.length);
+                for (int pageIndex = firstPage; pageIndex < lastPage; pageIndex++)
+                {
+                    float thumbLeft = (pageIndex - firstPage) * mColumnWidth;
+                    Point2D.Float size = mDocument.renderToScale(pageIndex, gr, thumbLeft, 0, mScale);
+
+                    // Draw the page rectangle.
+                    gr.setColor(Color.black);
+                    gr.drawRect((int) thumbLeft, 0, (int) size.getX(), (int) size.getY());
+                }
+            }
+            finally
+            {
+                gr.dispose();
+            }
+
+            writer.writeRows(strip, mRowHeights[row]);
+        }
+    }
+
+    /**
+     * Writes an 8-bit RGB PNG image whose rows are supplied in several parts. Rows are compressed as they arrive
+     * and written in IDAT chunks of a fixed size, so no more than one chunk of compressed data is kept in memory.
+     */
+    private static class PngStripWriter
+    {
+        PngStripWriter(OutputStream stream, int width, int height) throws IOException
+        {
+            mStream = stream;
+            mWidth = width;
+            mHeight = height;
+            mPixels = new int[width];
+            mRowBytes = new byte[1 + width * 3];
+
+            mStream.write(PNG_SIGNATURE);
+
+            ByteArrayOutputStream header = new ByteArrayOutputStream(13);
+            DataOutputStream headerData = new DataOutputStream(header);
+            headerData.writeInt(width);
+            headerData.writeInt(height);
+            headerData.writeByte(8); // Bit depth.
+            headerData.writeByte(2); // Truecolor.
+            headerData.writeByte(0); // Deflate compression.
+            headerData.writeByte(0); // Adaptive filtering.
+            headerData.writeByte(0); // No interlace.
+            writeChunk("IHDR", header.toByteArray(), header.size());
+
+            mImageData = new DeflaterOutputStream(new OutputStream()
+            {
+                @Override
+                public void write(int b) throws IOException
+                {
+                    write(new byte[]{(byte) b}, 0, 1);
+                }
+
+                @Override
+                public void write(byte[] b, int off, int len) throws IOException
+                {
+                    while (len > 0)
+                    {
+                        int count = Math.min(len, mChunk.length - mChunkSize);
+                        System.arraycopy(b, off, mChunk, mChunkSize, count);
+                        mChunkSize += count;
+                        off += count;
+                        len -= count;
+
+                        if (mChunkSize == mChunk.length)
+                            writeImageDataChunk();
+                    }
+                }
+            }, mDeflater, 8192);
+        }
+
+        /**
+         * Appends the first rows of the image to the PNG image.
+         */
+        void writeRows(BufferedImage image, int rowCount) throws IOException
+        {
+            if (mRowsWritten + rowCount > mHeight)
+                throw new IllegalStateException("More rows than the height of the image.");
+
+            for (int y = 0; y < rowCount; y++)
+            {
+                image.getRGB(0, y, mWidth, 1, mPixels, 0, mWidth);
+
+                // Every row starts with the filter type, 0 means the row is not filtered.
+                mRowBytes[0] = 0;
+                for (int x = 0; x < mWidth; x++)
+                {
+                    int pixel = mPixels[x];
+                    mRowBytes[1 + x * 3] = (byte) (pixel >> 16);
+                    mRowBytes[2 + x * 3] = (byte) (pixel >> 8);
+                    mRowBytes[3 + x * 3] = (byte) pixel;
+                }
+
+                mImageData.write(mRowBytes);
+            }
+
+            mRowsWritten += rowCount;
+        }
+
+        /**
+         * Writes the remaining image data and the end of the image. The stream stays open.
+         */
+        void finish() throws IOException
+        {
+            if (mRowsWritten != mHeight)
+                throw new IllegalStateException("Fewer rows than the height of the image.");
+
+            mImageData.finish();
+            if (mChunkSize > 0)
+                writeImageDataChunk();
+
+            writeChunk("IEND", new byte[0], 0);
+            mStream.flush();
+        }
+
+        /**
+         * Releases the native memory of the compressor. A DeflaterOutputStream does not release a Deflater
+         * it was given, so this must be called also when the image is not finished. The stream stays open.
+         */
+        void close()
+        {
+            mDeflater.end();
+        }
+
+        private void writeImageDataChunk() throws IOException
+        {
+            writeChunk("IDAT", mChunk, mChunkSize);
+            mChunkSize = 0;
+        }
+
+        private void writeChunk(String type, byte[] data, int length) throws IOException
+        {
+            byte[] typeBytes = type.getBytes(StandardCharsets.US_ASCII);
+
+            CRC32 crc = new CRC32();
+            crc.update(typeBytes);
+            crc.update(data, 0, length);
+
+            DataOutputStream chunk = new DataOutputStream(mStream);
+            chunk.writeInt(length);
+            chunk.write(typeBytes);
+            chunk.write(data, 0, length);
+            chunk.writeInt((int) crc.getValue());
+        }
+
+        private static final byte[] PNG_SIGNATURE = {(byte) 137, 80, 78, 71, 13, 10, 26, 10};
+
+        private final OutputStream mStream;
+        private final int mWidth;
+        private final int mHeight;
+        private final int[] mPixels;
+        private final byte[] mRowBytes;
+        private final Deflater mDeflater = new Deflater(Deflater.DEFAULT_COMPRESSION);
+        private final DeflaterOutputStream mImageData;
+        private final byte[] mChunk = new byte[64 * 1024];
+        private int mChunkSize;
+        private int mRowsWritten;
+    }
+
+    private static final float RESOLUTION = 96;
+
+    private final Document mDocument;
+    private final int mColumns;
+    private final float mScale;
+    private final Dimension[] mThumbSizes;
+    private final int[] mRowHeights;
+    private int mColumnWidth;
+}
@@ -7,6 +7,7 @@
 //////////////////////////////////////////////////////////////////////////
 
 import com.aspose.words.ref.Ref;
+import org.testng.Assert;
 import org.testng.annotations.Test;
 import com.aspose.words.Document;
 
@@ -50,6 +51,24 @@ public class ExMailMergeCustom extends ApiExampleBase
         doc.save(getArtifactsDir() + "MailMerge.CustomDataSource.doc");
     }
 
+    @Test
+    public void mailMergeBeanDataSource() throws Exception
+    {
+        CustomerList customers = new CustomerList();
+        customers.add(new Customer("Thomas Hardy", "120 Hanover Sq., London"));
+        customers.add(new Customer("Paolo Accorti", "Via Monte Bianco 34, Torino"));
+
+        Document doc = new Document(getMyDir() + "MailMerge.CustomDataSource.doc");
+
+        // The getters of Customer are mapped to the FullName and Address fields without a hand-written data source.
+        doc.getMailMerge().execute(new BeanMailMergeDataSource<Customer>(customers, "Customer"));
+
+        Assert.assertTrue(doc.getText().contains("Thomas Hardy"));
+        Assert.assertTrue(doc.getText().contains("Via Monte Bianco 34, Torino"));
+
+        doc.save(getArtifactsDir() + "MailMerge.BeanDataSource.doc");
+    }
+
     /**
      * An example of a "data entity" class in your application.
      */
@@ -8,6 +8,7 @@
 
 import com.aspose.words.*;
 import com.aspose.words.ref.Ref;
+import org.testng.Assert;
 import org.testng.annotations.Test;
 
 import java.util.ArrayList;
@@ -40,6 +41,28 @@ public class ExNestedMailMergeCustom extends ApiExampleBase
         doc.save(getArtifactsDir() + "NestedMailMerge.CustomDataSource.doc");
     }
 
+    @Test
+    public void mailMergeBeanDataSource() throws Exception
+    {
+        CustomerList customers = new CustomerList();
+        customers.add(new Customer("Thomas Hardy", "120 Hanover Sq., London"));
+        customers.add(new Customer("Paolo Accorti", "Via Monte Bianco 34, Torino"));
+
+        customers.get(0).getOrders().add(new Order("Rugby World Cup Cap", 2));
+        customers.get(0).getOrders().add(new Order("Rugby World Cup Ball", 1));
+        customers.get(1).getOrders().add(new Order("Rugby World Cup Guide", 1));
+
+        Document doc = new Document(getMyDir() + "NestedMailMerge.CustomDataSource.doc");
+
+        // The Order region is filled from the getOrders() collection of each customer.
+        doc.getMailMerge().executeWithRegions(new BeanMailMergeDataSource<Customer>(customers, "Customer"));
+
+        Assert.assertTrue(doc.getText().contains("Rugby World Cup Ball"));
+        Assert.assertTrue(doc.getText().contains("Rugby World Cup Guide"));
+
+        doc.save(getArtifactsDir() + "NestedMailMerge.BeanDataSource.doc");
+    }
+
     /**
      * An example of a "data entity" class in your application.
      */
@@ -561,6 +561,96 @@ public class ExRendering extends ApiExampleBase
         //ExEnd
     }
 
+    @Test
+    public void renderPagesInParallel() throws Exception
+    {
+        Document doc = new Document(getMyDir() + "Rendering.doc");
+
+        ImageSaveOptions options = new ImageSaveOptions(SaveFormat.PNG);
+        options.setResolution(150);
+
+        // Pages are rendered on all cores and arrive here one by one in page order.
+        List<Integer> renderedPages = new ArrayList<>();
+        PageRenderingService service = new PageRenderingService(doc, Runtime.getRuntime().availableProcessors());
+        service.render(0, doc.getPageCount(), options, (pageIndex, imageBytes) -> {
+            renderedPages.add(pageIndex);
+
+            try (FileOutputStream stream = new FileOutputStream(getArtifactsDir() + "Rendering.RenderPagesInParallel." + pageIndex + ".png"))
+            {
+                stream.write(imageBytes);
+            }
+        });
+
+        Assert.assertEquals(renderedPages.size(), doc.getPageCount());
+        for (int i = 0; i < renderedPages.size(); i++)
+            Assert.assertEquals(renderedPages.get(i).intValue(), i);
+    }
+
+    @Test
+    public void createThumbnailsContactSheet() throws Exception
+    {
+        Document doc = new Document(getMyDir() + "Rendering.doc");
+
+        // Pages of any size are laid out in rows of two, and the sheet is written one row at a time.
+        ContactSheetRenderer renderer = new ContactSheetRenderer(doc, 2, 0.25f);
+        try (FileOutputStream stream = new FileOutputStream(getArtifactsDir() + "Rendering.ContactSheet.png"))
+        {
+            renderer.save(stream);
+        }
+
+        BufferedImage sheet = ImageIO.read(new File(getArtifactsDir() + "Rendering.ContactSheet.png"));
+        Assert.assertEquals(sheet.getWidth(), renderer.getSheetSize().width);
+        Assert.assertEquals(sheet.getHeight(), renderer.getSheetSize().height);
+    }
+
+    @Test
+    public void renderChangedPagesOnly() throws Exception
+    {
+        // Every paragraph starts on a new page.
+        Document doc = new Document();
+        DocumentBuilder builder = new DocumentBuilder(doc);
+        builder.getParagraphFormat().setPageBreakBefore(true);
+        for (int i = 1; i <= 10; i++)
+        {
+            if (i > 1)
+                builder.insertParagraph();
+            builder.write("Page " + i);
+        }
+
+        LayoutChangeTracker tracker = new LayoutChangeTracker(doc);
+        Assert.assertEquals(doc.getPageCount(), 10);
+
+        // Changing text does not insert or remove nodes, so the change is reported to the tracker.
+        Paragraph paragraph = doc.getFirstSection().getBody().getParagraphs().get(4);
+        paragraph.getRuns().get(0).setText("Changed page 5");
+        tracker.markChanged(paragraph);
+
+        // Only the page of the changed paragraph looks different.
+        LayoutChangeTracker.PageRange changedPages = tracker.updatePageLayout();
+        Assert.assertEquals(changedPages.getPageIndex(), 4);
+        Assert.assertEquals(changedPages.getPageCount(), 1);
+
+        ImageSaveOptions options = new ImageSaveOptions(SaveFormat.PNG);
+        options.setPageIndex(changedPages.getPageIndex());
+        options.setPageCount(changedPages.getPageCount());
+        doc.save(getArtifactsDir() + "Rendering.RenderChangedPagesOnly.png", options);
+
+        // Inserted nodes are recorded by the tracker. The new page moves all pages after it.
+        Paragraph newParagraph = (Paragraph) paragraph.deepClone(true);
+        newParagraph.getRuns().get(0).setText("Inserted page");
+        paragraph.getParentNode().insertAfter(newParagraph, paragraph);
+
+        changedPages = tracker.updatePageLayout();
+        Assert.assertEquals(doc.getPageCount(), 11);
+        Assert.assertEquals(changedPages.getPageIndex(), 4);
+        Assert.assertEquals(changedPages.getPageCount(), 7);
+
+        // Nothing has changed since the last update.
+        Assert.assertTrue(tracker.updatePageLayout().isEmpty());
+
+        tracker.detach();
+    }
+
     //ExStart
     //ExFor:PageInfo.Landscape
     //ExFor:PageInfo.HeightInPoints
@@ -0,0 +1,321 @@
+//////////////////////////////////////////////////////////////////////////
+// Copyright (c) 2001-2018 Aspose Pty Ltd. All Rights Reserved.
+//
+// This file is part of Aspose.Words. The source code in this file
+// is only intended as a supplement to the documentation, and is provided
+// "as is", without warranty of any kind, either expressed or implied.
+//////////////////////////////////////////////////////////////////////////
+
+import com.aspose.words.*;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * Keeps track of the changes made to a document since its page layout was last built and tells which pages
+ * look different after the layout is updated, so that only those pages have to be rendered again.
+ * <p>
+ * Nodes that are inserted or removed are recorded through the node changing callback of the document. Changes
+ * that do not insert or remove nodes, such as changing the text of a run or the formatting of a paragraph, must be
+ * reported with {@link #markChanged(Node)}, and changes of styles or other document-wide settings with
+ * {@link #markAllChanged()}.
+ * <p>
+ * The page layout is still built for the whole document. A changed page range starts at the page where the first
+ * change was before the update and ends at the first page after the last change that starts with the same
+ * paragraph at the same page number as before the update. The pages from there on have the same content as before.
+ */
+public class LayoutChangeTracker implements INodeChangingCallback
+{
+    /**
+     * A range of pages in the form used by ImageSaveOptions.PageIndex and ImageSaveOptions.PageCount.
+     */
+    public static class PageRange
+    {
+        PageRange(int pageIndex, int pageCount)
+        {
+            mPageIndex = pageIndex;
+            mPageCount = pageCount;
+        }
+
+        /**
+         * Gets the 0-based index of the first page of the range.
+         */
+        public int getPageIndex()
+        {
+            return mPageIndex;
+        }
+
+        /**
+         * Gets the number of pages in the range. It is zero if no page has changed.
+         */
+        public int getPageCount()
+        {
+            return mPageCount;
+        }
+
+        public boolean isEmpty()
+        {
+            return mPageCount == 0;
+        }
+
+        private final int mPageIndex;
+        private final int mPageCount;
+    }
+
+    /**
+     * Builds the page layout of the document and starts tracking its changes. The document's node changing
+     * callback is replaced by the tracker, which passes all notifications on to the previous callback.
+     */
+    public LayoutChangeTracker(Document doc) throws Exception
+    {
+        mDocument = doc;
+        mLayoutCollector = new LayoutCollector(doc);
+        mDocument.updatePageLayout();
+        mPageTops = collectPageTops();
+        mPageCount = doc.getPageCount();
+
+        mPreviousCallback = doc.getNodeChangingCallback();
+        doc.setNodeChangingCallback(this);
+    }
+
+    /**
+     * Records a change of a node that does not insert or remove nodes, e.g. a change of text or formatting.
+     * Changes of a header or footer affect all pages of its section.
+     */
+    public void markChanged(Node node)
+    {
+        mChangedNodes.add(node);
+    }
+
+    /**
+     * Records a change that may affect every page, e.g. a change of a style.
+     */
+    public void markAllChanged()
+    {
+        mIsAllChanged = true;
+    }
+
+    public boolean hasChanges()
+    {
+        return mIsAllChanged || !mChangedNodes.isEmpty();
+    }
+
+    /**
+     * Updates the page layout of the document if it has changed and returns the pages that have to be rendered again.
+     */
+    public PageRange updatePageLayout() throws Exception
+    {
+        if (!hasChanges())
+            return new PageRange(0, 0);
+
+        // Where the changes were is only known until the layout is rebuilt.
+        int firstChangedPage = mIsAllChanged ? 1 : Integer.MAX_VALUE;
+        for (int i = 0; i < mChangedNodes.size() && firstChangedPage > 1; i++)
+            firstChangedPage = Math.min(firstChangedPage, getOldStartPage(mChangedNodes.get(i)));
+
+        mLayoutCollector.clear();
+        mDocument.updatePageLayout();
+
+        int pageCount = mDocument.getPageCount();
+        IdentityHashMap<Node, Integer> pageTops = collectPageTops();
+
+        int lastChangedPage = mIsAllChanged ? pageCount : 0;
+        for (int i = 0; i < mChangedNodes.size() && lastChangedPage < pageCount; i++)
+            lastChangedPage = Math.max(lastChangedPage, getNewEndPage(mChangedNodes.get(i), pageCount));
+
+        // Page numbers of the whole document are shown on every page.
+        if (pageCount != mPageCount && hasPageCountFields())
+        {
+            firstChangedPage = 1;
+            lastChangedPage = pageCount;
+        }
+
+        lastChangedPage = findLastChangedPage(pageTops, lastChangedPage, pageCount);
+        firstChangedPage = Math.min(firstChangedPage, Math.max(pageCount, 1));
+
+        mPageTops = pageTops;
+        mPageCount = pageCount;
+        mChangedNodes.clear();
+        mIsAllChanged = false;
+
+        if (pageCount == 0)
+            return new PageRange(0, 0);
+
+        return new PageRange(firstChangedPage - 1, lastChangedPage - firstChangedPage + 1);
+    }
+
+    /**
+     * Restores the node changing callback the document had before the tracker was created.
+     */
+    public void detach()
+    {
+        mDocument.setNodeChangingCallback(mPreviousCallback);
+    }
+
+    public void nodeInserting(NodeChangingArgs args)
+    {
+        if (mPreviousCallback != null)
+            mPreviousCallback.nodeInserting(args);
+    }
+
+    public void nodeInserted(NodeChangingArgs args)
+    {
+        // Nodes that are added to a node that is not in the document yet are recorded when that node is inserted.
+        if (isInDocument(args.getNode()))
+            mChangedNodes.add(args.getNode());
+
+        if (mPreviousCallback != null)
+            mPreviousCallback.nodeInserted(args);
+    }
+
+    public void nodeRemoving(NodeChangingArgs args)
+    {
+        // Once removed, the node has no position in the document. The node before it takes its place.
+        Node node = args.getNode();
+        if (isInDocument(node))
+            mChangedNodes.add(node.getPreviousSibling() != null ? node.getPreviousSibling() : node.getParentNode());
+
+        if (mPreviousCallback != null)
+            mPreviousCallback.nodeRemoving(args);
+    }
+
+    public void nodeRemoved(NodeChangingArgs args)
+    {
+        if (mPreviousCallback != null)
+            mPreviousCallback.nodeRemoved(args);
+    }
+
+    /**
+     * Returns the 1-based page where the node started in the layout that is about to be replaced. Nodes that were
+     * inserted since have no layout, so the page of the nearest node before them is used.
+     */
+    private int getOldStartPage(Node node) throws Exception
+    {
+        for (Node current = node; current != null; current = getPreviousInOrder(current))
+        {
+            if (!isInDocument(current))
+                return 1;
+
+            Node laidOutNode = getLaidOutNode(current);
+            int page = mLayoutCollector.getStartPageIndex(laidOutNode);
+            if (page > 0)
+                return page;
+        }
+
+        return 1;
+    }
+
+    /**
+     * Returns the 1-based page where the node ends in the new layout.
+     */
+    private int getNewEndPage(Node node, int pageCount) throws Exception
+    {
+        if (!isInDocument(node))
+            return pageCount;
+
+        for (Node current = getLaidOutNode(node); current != null; current = current.getParentNode())
+        {
+            int page = mLayoutCollector.getEndPageIndex(current);
+            if (page > 0)
+                return page;
+        }
+
+        return pageCount;
+    }
+
+    /**
+     * Returns the node whose pages a change of the node affects. Headers and footers are repeated on all pages of
+     * their section.
+     */
+    private static Node getLaidOutNode(Node node)
+    {
+        Node headerFooter = node.getNodeType() == NodeType.HEADER_FOOTER ? node : node.getAncestor(NodeType.HEADER_FOOTER);
+        if (headerFooter != null)
+            return headerFooter.getParentNode();
+
+        return node;
+    }
+
+    private static Node getPreviousInOrder(Node node)
+    {
+        return node.getPreviousSibling() != null ? node.getPreviousSibling() : node.getParentNode();
+    }
+
+    private boolean isInDocument(Node node)
+    {
+        return node != null && (node == mDocument || node.getAncestor(NodeType.DOCUMENT) == mDocument);
+    }
+
+    /**
+     * Extends the changed pages up to the first page that starts with the same paragraph at the same page number
+     * as before the update.
+     */
+    private int findLastChangedPage(IdentityHashMap<Node, Integer> pageTops, int lastChangedPage, int pageCount)
+    {
+        Node[] paragraphsByPage = new Node[pageCount + 1];
+        for (Map.Entry<Node, Integer> pageTop : pageTops.entrySet())
+            paragraphsByPage[pageTop.getValue()] = pageTop.getKey();
+
+        for (int page = lastChangedPage + 1; page <= pageCount; page++)
+        {
+            Node paragraph = paragraphsByPage[page];
+            if (paragraph != null && Integer.valueOf(page).equals(mPageTops.get(paragraph)))
+                return page - 1;
+        }
+
+        return pageCount;
+    }
+
+    /**
+     * Maps every paragraph of the main text that starts at the top of a page to the 1-based number of that page.
+     */
+    @SuppressWarnings("unchecked")
+    private IdentityHashMap<Node, Integer> collectPageTops() throws Exception
+    {
+        IdentityHashMap<Node, Integer> pageTops = new IdentityHashMap<>();
+
+        int previousEndPage = 0;
+        for (Paragraph paragraph : (Iterable<Paragraph>) mDocument.getChildNodes(NodeType.PARAGRAPH, true))
+        {
+            if (!isMainText(paragraph))
+                continue;
+
+            int startPage = mLayoutCollector.getStartPageIndex(paragraph);
+            if (startPage == 0)
+                continue;
+
+            if (startPage > previousEndPage)
+                pageTops.put(paragraph, startPage);
+
+            previousEndPage = Math.max(previousEndPage, mLayoutCollector.getEndPageIndex(paragraph));
+        }
+
+        return pageTops;
+    }
+
+    private static boolean isMainText(Node node)
+    {
+        return node.getAncestor(NodeType.HEADER_FOOTER) == null && node.getAncestor(NodeType.SHAPE) == null
+                && node.getAncestor(NodeType.FOOTNOTE) == null && node.getAncestor(NodeType.COMMENT) == null;
+    }
+
+    private boolean hasPageCountFields()
+    {
+        for (Field field : mDocument.getRange().getFields())
+        {
+            if (field.getType() == FieldType.FIELD_NUM_PAGES || field.getType() == FieldType.FIELD_SECTION_PAGES)
+                return true;
+        }
+
+        return false;
+    }
+
+    private final Document mDocument;
+    private final LayoutCollector mLayoutCollector;
+    private final INodeChangingCallback mPreviousCallback;
+    private final ArrayList<Node> mChangedNodes = new ArrayList<>();
+    private boolean mIsAllChanged;
+    private IdentityHashMap<Node, Integer> mPageTops;
+    private int mPageCount;
+}
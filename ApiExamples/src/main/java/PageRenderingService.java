@@ -0,0 +1,139 @@
+//////////////////////////////////////////////////////////////////////////
+// Copyright (c) 2001-2018 Aspose Pty Ltd. All Rights Reserved.
+//
+// This file is part of Aspose.Words. The source code in this file
+// is only intended as a supplement to the documentation, and is provided
+// "as is", without warranty of any kind, either expressed or implied.
+//////////////////////////////////////////////////////////////////////////
+
+import com.aspose.words.Document;
+import com.aspose.words.ImageSaveOptions;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayDeque;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Renders pages of a document to images on several threads.
+ * <p>
+ * A document may only be used by one thread at a time, so every worker renders from its own copy of the
+ * document with its own copy of the save options. The copies are made on the calling thread before rendering
+ * starts and each copy builds its page layout on the worker that uses it. Rendered pages are passed to the
+ * callback on the calling thread in page order, and at most two pages per worker are held in memory while
+ * they wait for their turn.
+ */
+public class PageRenderingService
+{
+    /**
+     * Receives rendered pages.
+     */
+    public interface PageImageCallback
+    {
+        /**
+         * Called for every rendered page, in page order.
+         *
+         * @param pageIndex  The 0-based index of the page.
+         * @param imageBytes The page in the format of the save options.
+         */
+        void pageRendered(int pageIndex, byte[] imageBytes) throws Exception;
+    }
+
+    public PageRenderingService(Document doc, int parallelism)
+    {
+        if (parallelism < 1)
+            throw new IllegalArgumentException("The number of threads must be positive.");
+
+        mDocument = doc;
+        mParallelism = parallelism;
+    }
+
+    /**
+     * Renders a range of pages using the format, resolution and other settings of the save options.
+     * The PageIndex and PageCount of the options are ignored.
+     *
+     * @param startPageIndex The 0-based index of the first page.
+     * @param pageCount      The number of pages to render.
+     */
+    public void render(int startPageIndex, int pageCount, ImageSaveOptions options, PageImageCallback callback) throws Exception
+    {
+        if (startPageIndex < 0 || pageCount < 0 || startPageIndex + pageCount > mDocument.getPageCount())
+            throw new IllegalArgumentException("The page range is outside of the document.");
+
+        int workerCount = Math.max(1, Math.min(mParallelism, pageCount));
+        BlockingQueue<RenderTarget> targets = new ArrayBlockingQueue<>(workerCount);
+
+        // The source document already has its layout, so one worker uses it directly while this thread waits.
+        targets.add(new RenderTarget(mDocument, options.deepClone()));
+        for (int i = 1; i < workerCount; i++)
+            targets.add(new RenderTarget(mDocument.deepClone(), options.deepClone()));
+
+        ExecutorService executor = Executors.newFixedThreadPool(workerCount);
+        ArrayDeque<Future<byte[]>> pendingPages = new ArrayDeque<>();
+
+        try
+        {
+            int nextPageIndex = startPageIndex;
+            for (int pageIndex = startPageIndex; pageIndex < startPageIndex + pageCount; pageIndex++)
+            {
+                // Hand finished pages to the callback before rendering runs too far ahead.
+                if (pendingPages.size() == workerCount * 2)
+                    callback.pageRendered(nextPageIndex++, pendingPages.removeFirst().get());
+
+                final int currentPageIndex = pageIndex;
+                pendingPages.addLast(executor.submit(() -> renderPage(targets, currentPageIndex)));
+            }
+
+            while (!pendingPages.isEmpty())
+                callback.pageRendered(nextPageIndex++, pendingPages.removeFirst().get());
+        }
+        catch (ExecutionException e)
+        {
+            throw (e.getCause() instanceof Exception) ? (Exception) e.getCause() : e;
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+    }
+
+    private static byte[] renderPage(BlockingQueue<RenderTarget> targets, int pageIndex) throws Exception
+    {
+        RenderTarget target = targets.take();
+        try
+        {
+            target.mOptions.setPageIndex(pageIndex);
+            target.mOptions.setPageCount(1);
+
+            ByteArrayOutputStream stream = new ByteArrayOutputStream();
+            target.mDocument.save(stream, target.mOptions);
+            return stream.toByteArray();
+        }
+        finally
+        {
+            targets.add(target);
+        }
+    }
+
+    /**
+     * A document and save options that are used by one thread at a time.
+     */
+    private static class RenderTarget
+    {
+        RenderTarget(Document document, ImageSaveOptions options)
+        {
+            mDocument = document;
+            mOptions = options;
+        }
+
+        private final Document mDocument;
+        private final ImageSaveOptions mOptions;
+    }
+
+    private final Document mDocument;
+    private final int mParallelism;
+}
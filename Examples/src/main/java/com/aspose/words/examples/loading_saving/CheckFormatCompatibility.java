@@ -8,6 +8,12 @@ import com.aspose.words.examples.Utils;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
 
 public class CheckFormatCompatibility {
     public static void main(String[] args) throws Exception {
@@ -103,8 +109,52 @@ public class CheckFormatCompatibility {
                 }
             }
         }
+
+        triageFolderTree(dataDir);
     }//ExEnd:CheckFormatCompatibility
 
+    public static void triageFolderTree(String dataDir) throws Exception {
+        //ExStart:TriageFolderTree
+        // The copies are made outside of the tree that is being walked.
+        final Path inDir = Paths.get(dataDir);
+        final Path outDir = Files.createTempDirectory("OutTriage");
+
+        // The whole folder tree is detected on all cores, and every file is copied into a folder named after its format.
+        FormatTriagePipeline pipeline = new FormatTriagePipeline(new FormatTriagePipeline.ResultSink() {
+            public void fileDetected(Path file, FileFormatInfo info) throws Exception {
+                String folderName = info.isEncrypted() ? "encrypted" : getFormatName(info.getLoadFormat());
+                // The subfolders of the tree are kept, so that files with the same name do not overwrite each other.
+                Path copy = outDir.resolve(folderName).resolve(inDir.relativize(file));
+                Files.createDirectories(copy.getParent());
+                Files.copy(file, copy, StandardCopyOption.REPLACE_EXISTING);
+            }
+
+            public void fileFailed(Path file, Exception error) {
+                System.out.println(file + "\t" + error.getMessage());
+            }
+        }, Runtime.getRuntime().availableProcessors());
+
+        // The Out* folders hold the copies made by the first part of the example, they would be counted twice.
+        pipeline.setDirectoryFilter(new DirectoryStream.Filter<Path>() {
+            public boolean accept(Path dir) {
+                return !dir.getFileName().toString().startsWith("Out");
+            }
+        });
+
+        pipeline.run(inDir);
+
+        for (Map.Entry<Integer, Long> count : pipeline.getFormatCounts().entrySet())
+            System.out.println(getFormatName(count.getKey()) + "\t" + count.getValue());
+        System.out.println("Encrypted: " + pipeline.getEncryptedCount() + ", signed: " + pipeline.getSignedCount() + ", failed: " + pipeline.getFailedCount());
+        System.out.println("Files copied to " + outDir);
+        //ExEnd:TriageFolderTree
+    }
+
+    private static String getFormatName(int loadFormat) {
+        // Unknown files have no extension.
+        return loadFormat == LoadFormat.UNKNOWN ? "unknown" : FileFormatUtil.loadFormatToExtension(loadFormat).substring(1);
+    }
+
     //ExStart:fileCopy
 	private static void fileCopy(String sourceFileName, String destinationFileName) throws Exception
     {
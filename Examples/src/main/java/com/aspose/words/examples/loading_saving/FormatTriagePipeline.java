@@ -0,0 +1,207 @@
+package com.aspose.words.examples.loading_saving;
+
+import com.aspose.words.FileFormatInfo;
+import com.aspose.words.FileFormatUtil;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Detects the format of every file in directory trees on several threads.
+ *
+ * The trees are walked on the calling thread and the files are handed to a pool of threads that detect their format.
+ * Only a few files per thread wait to be detected at a time, so a tree of millions of files is never held in memory.
+ * The results are passed to a sink and counted per format.
+ */
+public class FormatTriagePipeline {
+    /**
+     * Receives the results of the pipeline. The methods are called from the detecting threads at the same time,
+     * so the sink must be thread-safe.
+     */
+    public interface ResultSink {
+        void fileDetected(Path file, FileFormatInfo info) throws Exception;
+
+        /**
+         * Called for a file that could not be read or detected.
+         */
+        void fileFailed(Path file, Exception error) throws Exception;
+    }
+
+    public FormatTriagePipeline(ResultSink sink, int parallelism) {
+        if (parallelism < 1)
+            throw new IllegalArgumentException("The number of threads must be positive.");
+
+        mSink = sink;
+        mParallelism = parallelism;
+    }
+
+    /**
+     * Sets the filter of the subdirectories that are walked, e.g. to skip the folders the results are copied to.
+     * The roots are always walked. By default all subdirectories are walked.
+     */
+    public void setDirectoryFilter(DirectoryStream.Filter<Path> directoryFilter) {
+        mDirectoryFilter = directoryFilter;
+    }
+
+    /**
+     * Detects the formats of all files in the directory trees and returns when all results have been passed to the sink.
+     * If the sink throws an exception, no more files are detected and the exception is thrown from this method.
+     */
+    public void run(Path... roots) throws Exception {
+        final ExecutorService executor = Executors.newFixedThreadPool(mParallelism);
+        final Semaphore pendingFiles = new Semaphore(mParallelism * 4);
+        final AtomicReference<Exception> sinkError = new AtomicReference<Exception>();
+
+        try {
+            for (final Path root : roots) {
+                Files.walkFileTree(root, new SimpleFileVisitor<Path>() {
+                    @Override
+                    public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+                        if (mDirectoryFilter != null && !dir.equals(root) && !mDirectoryFilter.accept(dir))
+                            return FileVisitResult.SKIP_SUBTREE;
+
+                        return FileVisitResult.CONTINUE;
+                    }
+
+                    @Override
+                    public FileVisitResult visitFile(final Path file, BasicFileAttributes attrs) throws IOException {
+                        if (sinkError.get() != null)
+                            return FileVisitResult.TERMINATE;
+
+                        if (!attrs.isRegularFile())
+                            return FileVisitResult.CONTINUE;
+
+                        // Wait while the detecting threads are busy instead of queuing the whole tree.
+                        try {
+                            pendingFiles.acquire();
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                            throw new InterruptedIOException();
+                        }
+
+                        executor.execute(new Runnable() {
+                            public void run() {
+                                try {
+                                    if (sinkError.get() == null)
+                                        triageFile(file);
+                                } catch (Exception e) {
+                                    sinkError.compareAndSet(null, e);
+                                } finally {
+                                    pendingFiles.release();
+                                }
+                            }
+                        });
+
+                        return FileVisitResult.CONTINUE;
+                    }
+
+                    @Override
+                    public FileVisitResult visitFileFailed(Path file, IOException e) {
+                        try {
+                            fileFailed(file, e);
+                        } catch (Exception sinkException) {
+                            sinkError.compareAndSet(null, sinkException);
+                            return FileVisitResult.TERMINATE;
+                        }
+
+                        return FileVisitResult.CONTINUE;
+                    }
+                });
+            }
+        } finally {
+            executor.shutdown();
+            executor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+        }
+
+        if (sinkError.get() != null)
+            throw sinkError.get();
+    }
+
+    /**
+     * Gets the number of detected files of each load format, ordered by format.
+     */
+    public Map<Integer, Long> getFormatCounts() {
+        TreeMap<Integer, Long> counts = new TreeMap<Integer, Long>();
+        for (Map.Entry<Integer, AtomicLong> count : mFormatCounts.entrySet())
+            counts.put(count.getKey(), count.getValue().get());
+
+        return counts;
+    }
+
+    public long getEncryptedCount() {
+        return mEncryptedCount.get();
+    }
+
+    public long getSignedCount() {
+        return mSignedCount.get();
+    }
+
+    /**
+     * Gets the number of files that could not be read or detected.
+     */
+    public long getFailedCount() {
+        return mFailedCount.get();
+    }
+
+    private void triageFile(Path file) throws Exception {
+        FileFormatInfo info;
+
+        // The detector is given the path rather than a stream, so it can seek in the file as it needs to,
+        // e.g. to the directory of an OLE or ZIP container.
+        try {
+            info = FileFormatUtil.detectFileFormat(file.toString());
+        } catch (Exception e) {
+            fileFailed(file, e);
+            return;
+        }
+
+        count(info.getLoadFormat());
+        if (info.isEncrypted())
+            mEncryptedCount.incrementAndGet();
+        if (info.hasDigitalSignature())
+            mSignedCount.incrementAndGet();
+
+        mSink.fileDetected(file, info);
+    }
+
+    private void fileFailed(Path file, Exception error) throws Exception {
+        mFailedCount.incrementAndGet();
+        mSink.fileFailed(file, error);
+    }
+
+    private void count(int loadFormat) {
+        AtomicLong count = mFormatCounts.get(loadFormat);
+        if (count == null) {
+            AtomicLong newCount = new AtomicLong();
+            count = mFormatCounts.putIfAbsent(loadFormat, newCount);
+            if (count == null)
+                count = newCount;
+        }
+
+        count.incrementAndGet();
+    }
+
+    private final ResultSink mSink;
+    private final int mParallelism;
+    private DirectoryStream.Filter<Path> mDirectoryFilter;
+    private final ConcurrentMap<Integer, AtomicLong> mFormatCounts = new ConcurrentHashMap<Integer, AtomicLong>();
+    private final AtomicLong mEncryptedCount = new AtomicLong();
+    private final AtomicLong mSignedCount = new AtomicLong();
+    private final AtomicLong mFailedCount = new AtomicLong();
+}
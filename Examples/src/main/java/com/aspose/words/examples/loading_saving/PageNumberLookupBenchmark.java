@@ -0,0 +1,261 @@
+package com.aspose.words.examples.loading_saving;
+
+import com.aspose.words.Document;
+import com.aspose.words.DocumentBuilder;
+import com.aspose.words.LayoutCollector;
+import com.aspose.words.Node;
+import com.aspose.words.NodeType;
+
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.Hashtable;
+
+/**
+ * Compares the node to page lookup tables used by PageNumberFinder on a large generated document.
+ * The boxed Hashtable that the finder used before is measured against NodePageMap. Then the whole
+ * document is split into pages once with a finder that still uses Hashtables and once with
+ * PageNumberFinder, and the time and heap of both splits are reported.
+ */
+public class PageNumberLookupBenchmark
+{
+    public static void main(String[] args) throws Exception
+    {
+        int paragraphCount = (args.length > 0) ? Integer.parseInt(args[0]) : 50000;
+
+        Document doc = createLargeDocument(paragraphCount);
+        Node[] nodes = doc.getChildNodes(NodeType.ANY, true).toArray();
+        System.out.println(MessageFormat.format("Document with {0} nodes.", nodes.length));
+
+        // Measure each structure a few times so that the JIT has warmed up for the last run.
+        for (int run = 0; run < 3; run++)
+        {
+            long hashtableBytes = measureHashtable(nodes);
+            long nodePageMapBytes = measureNodePageMap(nodes);
+
+            System.out.println(MessageFormat.format("Heap used by the lookup: Hashtable {0} KB, NodePageMap {1} KB.",
+                    hashtableBytes / 1024, nodePageMapBytes / 1024));
+        }
+
+        // Each split changes its document, so both start from a new copy.
+        nodes = null;
+        doc = null;
+        measureSplit("Hashtable", createLargeDocument(paragraphCount), true);
+        measureSplit("NodePageMap", createLargeDocument(paragraphCount), false);
+    }
+
+    /**
+     * Splits the document into pages and then looks up the nodes of every page, which are the two uses of
+     * the lookup tables of the finder.
+     */
+    private static void measureSplit(String name, Document doc, boolean useHashtables) throws Exception
+    {
+        long memoryBefore = usedMemory();
+        long startTime = System.nanoTime();
+
+        LayoutCollector collector = new LayoutCollector(doc);
+        doc.updatePageLayout();
+        PageNumberFinder finder = useHashtables ? new HashtablePageNumberFinder(collector) : new PageNumberFinder(collector);
+        finder.splitNodesAcrossPages();
+
+        IndexedDocumentPageSplitter splitter = new IndexedDocumentPageSplitter(finder);
+        for (int page = 1; page <= splitter.getPageCount(); page++)
+        {
+            splitter.getDocumentOfPage(page);
+        }
+        long splitTime = System.nanoTime() - startTime;
+
+        startTime = System.nanoTime();
+        long nodeCount = 0;
+        for (int page = 1; page <= splitter.getPageCount(); page++)
+        {
+            nodeCount += finder.retrieveAllNodesOnPages(page, page, NodeType.ANY).size();
+        }
+        long lookupTime = System.nanoTime() - startTime;
+
+        long memoryUsed = usedMemory() - memoryBefore;
+
+        // Keeps the finder reachable until its memory has been measured.
+        if (finder.getDocument() != doc)
+            throw new IllegalStateException("The finder works with another document.");
+
+        System.out.println(MessageFormat.format("{0}: split {1} pages in {2} ms, looked up {3} nodes in {4} ms, {5} KB heap.",
+                name, splitter.getPageCount(), splitTime / 1000000, nodeCount, lookupTime / 1000000, memoryUsed / 1024));
+    }
+
+    private static Document createLargeDocument(int paragraphCount) throws Exception
+    {
+        Document doc = new Document();
+        DocumentBuilder builder = new DocumentBuilder(doc);
+
+        for (int i = 0; i < paragraphCount; i++)
+        {
+            builder.write("Paragraph " + i + " ");
+            builder.getFont().setBold(true);
+            builder.write("with a second run.");
+            builder.getFont().setBold(false);
+            builder.writeln();
+        }
+
+        return doc;
+    }
+
+    private static long measureHashtable(Node[] nodes)
+    {
+        long memoryBefore = usedMemory();
+        long startTime = System.nanoTime();
+
+        Hashtable lookup = new Hashtable();
+        for (int i = 0; i < nodes.length; i++)
+        {
+            lookup.put(nodes[i], i % 1000 + 1);
+        }
+
+        long sum = 0;
+        for (Node node : nodes)
+        {
+            sum += lookup.containsKey(node) ? (Integer) lookup.get(node) : 0;
+        }
+
+        long elapsed = System.nanoTime() - startTime;
+        long memoryUsed = usedMemory() - memoryBefore;
+
+        // Keeps the lookup reachable until its memory has been measured.
+        if (lookup.size() != nodes.length)
+            throw new IllegalStateException("Not all nodes were added to the lookup.");
+
+        System.out.println(MessageFormat.format("Hashtable: {0} ms (checksum {1}).", elapsed / 1000000, sum));
+        return memoryUsed;
+    }
+
+    private static long measureNodePageMap(Node[] nodes)
+    {
+        long memoryBefore = usedMemory();
+        long startTime = System.nanoTime();
+
+        NodePageMap lookup = new NodePageMap();
+        for (int i = 0; i < nodes.length; i++)
+        {
+            lookup.put(nodes[i], i % 1000 + 1);
+        }
+
+        long sum = 0;
+        for (Node node : nodes)
+        {
+            sum += lookup.get(node);
+        }
+
+        long elapsed = System.nanoTime() - startTime;
+        long memoryUsed = usedMemory() - memoryBefore;
+
+        // Keeps the lookup reachable until its memory has been measured.
+        if (lookup.size() != nodes.length)
+            throw new IllegalStateException("Not all nodes were added to the lookup.");
+
+        System.out.println(MessageFormat.format("NodePageMap: {0} ms (checksum {1}).", elapsed / 1000000, sum));
+        return memoryUsed;
+    }
+
+    /**
+     * Returns the heap in use after a full collection.
+     */
+    private static long usedMemory()
+    {
+        Runtime runtime = Runtime.getRuntime();
+        System.gc();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
+
+/**
+ * The lookup tables of PageNumberFinder as they were before NodePageMap: page numbers are boxed
+ * into Hashtables keyed by node, and the nodes of each page are kept in a Hashtable keyed by page number.
+ * Only the methods that use the tables are replaced, the splitting itself is the same.
+ */
+class HashtablePageNumberFinder extends PageNumberFinder
+{
+    private Hashtable nodeStartPageLookup = new Hashtable();
+    private Hashtable nodeEndPageLookup = new Hashtable();
+    private Hashtable reversePageLookup;
+    private LayoutCollector collector;
+
+    public HashtablePageNumberFinder(LayoutCollector collector)
+    {
+        super(collector);
+        this.collector = collector;
+    }
+
+    @Override
+    public int getPage(Node node) throws Exception
+    {
+        return this.nodeStartPageLookup.containsKey(node) ?
+                (Integer) this.nodeStartPageLookup.get(node) : this.collector.getStartPageIndex(node);
+    }
+
+    @Override
+    public int getPageEnd(Node node) throws Exception
+    {
+        return this.nodeEndPageLookup.containsKey(node) ?
+                (Integer) this.nodeEndPageLookup.get(node) : this.collector.getEndPageIndex(node);
+    }
+
+    @Override
+    void addPageNumbersForNode(Node node, int startPage, int endPage)
+    {
+        if (startPage > 0)
+        {
+            this.nodeStartPageLookup.put(node, startPage);
+        }
+
+        if (endPage > 0)
+        {
+            this.nodeEndPageLookup.put(node, endPage);
+        }
+    }
+
+    @Override
+    public ArrayList retrieveAllNodesOnPages(int startPage, int endPage, int nodeType) throws Exception
+    {
+        if (this.reversePageLookup == null)
+        {
+            this.reversePageLookup = new Hashtable();
+            for (Node node : (Iterable<Node>) this.getDocument().getChildNodes(NodeType.ANY, true))
+            {
+                if (node.getNodeType() == NodeType.HEADER_FOOTER || node.getAncestor(NodeType.HEADER_FOOTER) != null)
+                {
+                    continue;
+                }
+
+                for (int page = this.getPage(node); page <= this.getPageEnd(node); page++)
+                {
+                    if (!this.reversePageLookup.containsKey(page))
+                    {
+                        this.reversePageLookup.put(page, new ArrayList());
+                    }
+
+                    ((ArrayList) this.reversePageLookup.get(page)).add(node);
+                }
+            }
+        }
+
+        ArrayList pageNodes = new ArrayList();
+        for (int page = startPage; page <= endPage; page++)
+        {
+            if (!this.reversePageLookup.containsKey(page))
+            {
+                continue;
+            }
+
+            for (Node node : (Iterable<Node>) this.reversePageLookup.get(page))
+            {
+                if (node.getParentNode() != null
+                        && (nodeType == NodeType.ANY || node.getNodeType() == nodeType)
+                        && !pageNodes.contains(node))
+                {
+                    pageNodes.add(node);
+                }
+            }
+        }
+
+        return pageNodes;
+    }
+}
@@ -4,9 +4,17 @@ import com.aspose.words.*;
 import com.aspose.words.examples.Utils;
 
 import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
 import java.text.MessageFormat;
 import java.util.*;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
 
 public class PageSplitter
 {
@@ -20,8 +28,9 @@ public class PageSplitter
         String dataDir = Utils.getDataDir(PageSplitter.class);
 
         SplitAllDocumentsToPages(dataDir);
+        SplitAllDocumentsToPagesInParallel(dataDir);
 		//ExEnd:PageSplitter
-        System.out.println("\nDocument split to pages successfully.\nFile saved at " + dataDir + "\\Out");
+        System.out.println("\nDocument split to pages successfully.\nFile saved at " + dataDir + "\\Out and " + dataDir + "\\OutParallel");
     }
 
     //ExStart:SplitDocumentToPages
@@ -47,6 +56,36 @@ public class PageSplitter
     }
 	//ExEnd:SplitDocumentToPages
 
+    //ExStart:SplitDocumentToPagesInParallel
+	public static void SplitDocumentToPagesInParallel(File docName) throws Exception
+    {
+        String fileName = docName.getName();
+        final String extensionName = fileName.substring(fileName.lastIndexOf("."));
+        final File outFolder = new File(docName.getParent(), "OutParallel");
+        final String baseName = fileName;
+        System.out.println("Processing document: " + fileName);
+
+        // The pages are saved to streams, so the format is given by the extension of the document.
+        int saveFormat = FileFormatUtil.extensionToSaveFormat(extensionName);
+        outFolder.mkdirs();
+
+        Document doc = new Document(docName.getAbsolutePath());
+
+        // Split nodes in the document into separate pages and index the sections of each page once.
+        IndexedDocumentPageSplitter splitter = new IndexedDocumentPageSplitter(doc);
+
+        // Save all pages to the disk as separate documents, using one thread per processor.
+        splitter.savePages(1, splitter.getPageCount(), new PageOutputSink()
+        {
+            public OutputStream openPage(int pageIndex) throws Exception
+            {
+                String pageFileName = MessageFormat.format("{0} - page{1} Out{2}", baseName, pageIndex, extensionName);
+                return new FileOutputStream(new File(outFolder, pageFileName));
+            }
+        }, saveFormat, Runtime.getRuntime().availableProcessors());
+    }
+	//ExEnd:SplitDocumentToPagesInParallel
+
     //ExStart:SplitAllDocumentsToPages
 	public static void SplitAllDocumentsToPages(String folderName) throws Exception
     {
@@ -59,6 +98,19 @@ public class PageSplitter
         }
     }
 	//ExEnd:SplitAllDocumentsToPages
+
+    //ExStart:SplitAllDocumentsToPagesInParallel
+	public static void SplitAllDocumentsToPagesInParallel(String folderName) throws Exception
+    {
+        File[] files = new File(folderName).listFiles();
+
+        for (File file : files) {
+            if (file.isFile()) {
+                SplitDocumentToPagesInParallel(file);
+            }
+        }
+    }
+	//ExEnd:SplitAllDocumentsToPagesInParallel
 }
 
 //ExStart:DocumentPageSplitter
@@ -122,14 +174,197 @@ class DocumentPageSplitter
     }
 }
 
+/// <summary>
+/// Receives the output of each page saved by <see cref="IndexedDocumentPageSplitter"/>.
+/// Pages are saved on worker threads, so this may be called concurrently.
+/// </summary>
+interface PageOutputSink
+{
+    /// <summary>
+    /// Returns the stream to save the page to. The stream is closed by the caller.
+    /// </summary>
+    /// <param name="pageIndex">1-based index of a page.</param>
+    OutputStream openPage(int pageIndex) throws Exception;
+}
+
+/// <summary>
+/// Splits a document into pages like <see cref="DocumentPageSplitter"/>, but builds a page to section index once
+/// so that each page range is extracted by importing only its own sections.
+/// </summary>
+class IndexedDocumentPageSplitter
+{
+    private Document document;
+
+    // Sections found on each page. Index 0 is page 1.
+    private List<List<Section>> pageSections;
+
+    /// <summary>
+    /// Initializes a new instance of the <see cref="IndexedDocumentPageSplitter"/> class.
+    /// This method splits the document into sections so that each page begins and ends at a section boundary.
+    /// It is recommended not to modify the document afterwards.
+    /// </summary>
+    /// <param name="source">source document</param>
+    public IndexedDocumentPageSplitter(Document source) throws Exception
+    {
+        this(PageNumberFinderFactory.create(source));
+    }
+
+    /// <summary>
+    /// Initializes a new instance of the <see cref="IndexedDocumentPageSplitter"/> class from a finder
+    /// that has already split its document.
+    /// </summary>
+    /// <param name="pageNumberFinder">A finder created by <see cref="PageNumberFinderFactory"/>.</param>
+    IndexedDocumentPageSplitter(PageNumberFinder pageNumberFinder) throws Exception
+    {
+        this.document = pageNumberFinder.getDocument();
+
+        int pageCount = this.document.getPageCount();
+        this.pageSections = new ArrayList<List<Section>>(pageCount);
+        for (int page = 1; page <= pageCount; page++)
+        {
+            this.pageSections.add(new ArrayList<Section>());
+        }
+
+        // After splitting, a section normally covers a single page, so this visits each section once.
+        for (Section section : this.document.getSections())
+        {
+            int startPage = Math.max(pageNumberFinder.getPage(section), 1);
+            int endPage = Math.min(pageNumberFinder.getPageEnd(section), pageCount);
+            for (int page = startPage; page <= endPage; page++)
+            {
+                this.pageSections.get(page - 1).add(section);
+            }
+        }
+    }
+
+    /// <summary>
+    /// Gets the number of pages in the index.
+    /// </summary>
+    public int getPageCount()
+    {
+        return this.pageSections.size();
+    }
+
+    /// <summary>
+    /// Gets the document of a page.
+    /// </summary>
+    /// <param name="pageIndex">
+    /// 1-based index of a page.
+    /// </param>
+    public Document getDocumentOfPage(int pageIndex) throws Exception
+    {
+        return this.getDocumentOfPageRange(pageIndex, pageIndex);
+    }
+
+    /// <summary>
+    /// Gets the document of a page range. Only the sections on these pages are copied.
+    /// </summary>
+    /// <param name="startIndex">
+    /// 1-based index of the start page.
+    /// </param>
+    /// <param name="endIndex">
+    /// 1-based index of the end page.
+    /// </param>
+    public Document getDocumentOfPageRange(int startIndex, int endIndex) throws Exception
+    {
+        if (startIndex < 1 || startIndex > this.getPageCount()) {
+            throw new IllegalStateException("'startPage' is out of range");
+        }
+
+        if (endIndex < 1 || endIndex > this.getPageCount() || endIndex < startIndex) {
+            throw new IllegalStateException("'endPage' is out of range");
+        }
+
+        Document result = (Document) this.document.deepClone(false);
+        Set<Section> imported = Collections.newSetFromMap(new IdentityHashMap<Section, Boolean>());
+        for (int page = startIndex; page <= endIndex; page++)
+        {
+            for (Section section : this.pageSections.get(page - 1))
+            {
+                // A section that spans several pages of the range is copied only once.
+                if (imported.add(section))
+                {
+                    result.appendChild(result.importNode(section, true));
+                }
+            }
+        }
+
+        return result;
+    }
+
+    /// <summary>
+    /// Saves each page of a range as a separate document.
+    /// Pages are extracted on the calling thread and saved on a pool of worker threads. At most two pages
+    /// per worker wait to be saved, so memory use does not grow with the number of pages.
+    /// </summary>
+    /// <param name="startIndex">1-based index of the start page.</param>
+    /// <param name="endIndex">1-based index of the end page.</param>
+    /// <param name="sink">Provides the output stream of each page.</param>
+    /// <param name="saveFormat">The <see cref="SaveFormat"/> of the page documents.</param>
+    /// <param name="parallelism">The number of worker threads.</param>
+    public void savePages(int startIndex, int endIndex, final PageOutputSink sink, final int saveFormat, int parallelism) throws Exception
+    {
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism);
+        final Semaphore pendingPages = new Semaphore(parallelism * 2);
+        List<Future<Void>> results = new ArrayList<Future<Void>>();
+
+        try
+        {
+            for (int page = startIndex; page <= endIndex; page++)
+            {
+                pendingPages.acquire();
+
+                final int pageIndex = page;
+                final Document pageDoc = this.getDocumentOfPage(page);
+                results.add(executor.submit(new Callable<Void>()
+                {
+                    public Void call() throws Exception
+                    {
+                        try
+                        {
+                            OutputStream stream = sink.openPage(pageIndex);
+                            try
+                            {
+                                pageDoc.save(stream, saveFormat);
+                            }
+                            finally
+                            {
+                                stream.close();
+                            }
+                        }
+                        finally
+                        {
+                            pendingPages.release();
+                        }
+                        return null;
+                    }
+                }));
+            }
+
+            for (Future<Void> result : results)
+            {
+                result.get();
+            }
+        }
+        catch (ExecutionException e)
+        {
+            throw (e.getCause() instanceof Exception) ? (Exception) e.getCause() : e;
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+    }
+}
+
 class PageNumberFinder {
     // Maps node to a start/end page numbers. This is used to override baseline page numbers provided by collector when document is split.
-    private Hashtable nodeStartPageLookup = new Hashtable();
-    private Hashtable nodeEndPageLookup = new Hashtable();
+    private NodePageMap nodeStartPageLookup = new NodePageMap();
+    private NodePageMap nodeEndPageLookup = new NodePageMap();
     private LayoutCollector collector;
 
-    // Maps page number to a list of nodes found on that page.
-    private Hashtable reversePageLookup;
+    // Lists of nodes found on each page. Index 0 is page 1.
+    private ArrayList<ArrayList<Node>> reversePageLookup;
 
     /// <summary>
     /// Initializes a new instance of the <see cref="PageNumberFinder"/> class.
@@ -156,8 +391,8 @@ class PageNumberFinder {
     /// Page index.
     /// </returns>
     public int getPage(Node node) throws Exception {
-        return this.nodeStartPageLookup.containsKey(node) ?
-                (Integer) this.nodeStartPageLookup.get(node) : this.collector.getStartPageIndex(node);
+        int page = this.nodeStartPageLookup.get(node);
+        return page > 0 ? page : this.collector.getStartPageIndex(node);
     }
 
     /// <summary>
@@ -170,9 +405,8 @@ class PageNumberFinder {
     /// Page index.
     /// </returns>
     public int getPageEnd(Node node) throws Exception {
-        return this.nodeEndPageLookup.containsKey(node) ?
-                (Integer) this.nodeEndPageLookup.get(node) :
-                this.collector.getEndPageIndex(node);
+        int page = this.nodeEndPageLookup.get(node);
+        return page > 0 ? page : this.collector.getEndPageIndex(node);
     }
 
     /// <summary>
@@ -214,16 +448,17 @@ class PageNumberFinder {
 
         this.checkPageListsPopulated();
         ArrayList pageNodes = new ArrayList();
+        Set<Node> addedNodes = Collections.newSetFromMap(new IdentityHashMap<Node, Boolean>());
         for (int page = startPage; page <= endPage; page++) {
             // Some pages can be empty.
-            if (!this.reversePageLookup.containsKey(page)) {
+            if (page > this.reversePageLookup.size()) {
                 continue;
             }
 
-            for (Node node : (Iterable<Node>) this.reversePageLookup.get(page)) {
+            for (Node node : this.reversePageLookup.get(page - 1)) {
                 if (node.getParentNode() != null
                         && (nodeType == NodeType.ANY || node.getNodeType() == nodeType)
-                        && !pageNodes.contains(node)) {
+                        && addedNodes.add(node)) {
                     pageNodes.add(node);
                 }
             }
@@ -280,7 +515,7 @@ class PageNumberFinder {
             return;
         }
 
-        this.reversePageLookup = new Hashtable();
+        this.reversePageLookup = new ArrayList<ArrayList<Node>>();
 
         // Add each node to a list which represent the nodes found on each page.
         for (Node node : (Iterable<Node>) this.getDocument().getChildNodes(NodeType.ANY, true)) {
@@ -291,12 +526,12 @@ class PageNumberFinder {
 
             int startPage = this.getPage(node);
             int endPage = this.getPageEnd(node);
-            for (int page = startPage; page <= endPage; page++) {
-                if (!this.reversePageLookup.containsKey(page)) {
-                    this.reversePageLookup.put(page, new ArrayList());
-                }
+            while (this.reversePageLookup.size() < endPage) {
+                this.reversePageLookup.add(new ArrayList<Node>());
+            }
 
-                ((ArrayList) this.reversePageLookup.get(page)).add(node);
+            for (int page = Math.max(startPage, 1); page <= endPage; page++) {
+                this.reversePageLookup.get(page - 1).add(node);
             }
         }
     }
@@ -346,6 +581,104 @@ class PageNumberFinder {
     }
 }
 
+/// <summary>
+/// Maps nodes to page numbers. Nodes are compared by identity and pages are stored as primitive ints, so
+/// no boxed integers or entry objects are allocated and access is not synchronized.
+/// Uses open addressing with linear probing; a page number of 0 means that the node is not in the map.
+/// </summary>
+class NodePageMap
+{
+    private static final int INITIAL_CAPACITY = 64;
+
+    private Node[] keys = new Node[INITIAL_CAPACITY];
+    private int[] pages = new int[INITIAL_CAPACITY];
+    private int size;
+
+    /// <summary>
+    /// Returns the page number stored for the node, or 0 if there is none.
+    /// </summary>
+    public int get(Node node)
+    {
+        int mask = this.keys.length - 1;
+        for (int i = indexFor(node, mask); this.keys[i] != null; i = (i + 1) & mask)
+        {
+            if (this.keys[i] == node)
+            {
+                return this.pages[i];
+            }
+        }
+
+        return 0;
+    }
+
+    /// <summary>
+    /// Stores the page number for the node, replacing any previous value.
+    /// </summary>
+    public void put(Node node, int page)
+    {
+        // Keep the table at most half full so that probe sequences stay short.
+        if ((this.size + 1) * 2 > this.keys.length)
+        {
+            this.resize(this.keys.length * 2);
+        }
+
+        int mask = this.keys.length - 1;
+        int i = indexFor(node, mask);
+        while (this.keys[i] != null && this.keys[i] != node)
+        {
+            i = (i + 1) & mask;
+        }
+
+        if (this.keys[i] == null)
+        {
+            this.keys[i] = node;
+            this.size++;
+        }
+        this.pages[i] = page;
+    }
+
+    public int size()
+    {
+        return this.size;
+    }
+
+    public void clear()
+    {
+        Arrays.fill(this.keys, null);
+        this.size = 0;
+    }
+
+    private void resize(int capacity)
+    {
+        Node[] oldKeys = this.keys;
+        int[] oldPages = this.pages;
+        this.keys = new Node[capacity];
+        this.pages = new int[capacity];
+
+        int mask = capacity - 1;
+        for (int j = 0; j < oldKeys.length; j++)
+        {
+            if (oldKeys[j] != null)
+            {
+                int i = indexFor(oldKeys[j], mask);
+                while (this.keys[i] != null)
+                {
+                    i = (i + 1) & mask;
+                }
+                this.keys[i] = oldKeys[j];
+                this.pages[i] = oldPages[j];
+            }
+        }
+    }
+
+    private static int indexFor(Node node, int mask)
+    {
+        // Spread the identity hash so that nearby hash codes do not cluster.
+        int h = System.identityHashCode(node) * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & mask;
+    }
+}
+
 class PageNumberFinderFactory
 {
     /* Simulation of static class by using private constructor */
@@ -14,6 +14,12 @@ import com.aspose.words.ref.Ref;
 
 import java.io.File;
 import java.util.ArrayList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
 
 public class SplitIntoHtmlPages
 {
@@ -36,9 +42,9 @@ public class SplitIntoHtmlPages
         File outDir = new File(dataDir, "Out");
         outDir.mkdirs();
 
-        // This class does the job.
+        // This class does the job. Topics are saved on one thread per processor.
         Worker w = new Worker();
-        w.execute(srcFileName, tocTemplate, outDir.getPath());
+        w.execute(srcFileName, tocTemplate, outDir.getPath(), Runtime.getRuntime().availableProcessors());
 		//ExStart:SplitIntoHtmlPages
 
         System.out.println("Document split into HTML pages successfully.");
@@ -150,6 +156,83 @@ class Worker
         saveTableOfContents(topics);
     }
 
+    /**
+     * Performs the Word to HTML conversion with topic extraction and HTML saving overlapped.
+     *
+     * Topics are extracted from the source document one after another on the calling thread, because the
+     * source document must not be accessed from several threads. Each extracted topic is an independent
+     * document and is saved on a pool of worker threads while the next topic is extracted. At most two
+     * topics per worker wait to be saved. The table of contents only needs topic titles and file names, so
+     * it is generated on the pool as soon as extraction is done, while the last topics are still saving.
+     *
+     * @param srcFileName The MS Word file to convert.
+     * @param tocTemplate An MS Word file that is used as a template to build the table of contents.
+     * @param dstDir The output directory where to write HTML files. Must exist.
+     * @param parallelism The number of threads that save topics.
+     */
+    void execute(String srcFileName, String tocTemplate, String dstDir, int parallelism) throws Exception
+    {
+        mDoc = new Document(srcFileName);
+        mTocTemplate = tocTemplate;
+        mDstDir = dstDir;
+
+        ArrayList topicStartParas = selectTopicStarts();
+        insertSectionBreaks(topicStartParas);
+
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism);
+        final Semaphore pendingTopics = new Semaphore(parallelism * 2);
+        ArrayList<Future<Void>> results = new ArrayList<Future<Void>>();
+
+        try
+        {
+            final ArrayList topics = new ArrayList();
+            for (int sectionIdx = 0; sectionIdx < mDoc.getSections().getCount(); sectionIdx++)
+            {
+                pendingTopics.acquire();
+
+                final Topic topic = createTopic(mDoc.getSections().get(sectionIdx), sectionIdx);
+                topics.add(topic);
+
+                final Document topicDoc = createHtmlTopicDocument(mDoc.getSections().get(sectionIdx), topic);
+                results.add(executor.submit(new Callable<Void>()
+                {
+                    public Void call() throws Exception
+                    {
+                        try
+                        {
+                            saveHtmlTopicDocument(topicDoc, topic);
+                        }
+                        finally
+                        {
+                            pendingTopics.release();
+                        }
+                        return null;
+                    }
+                }));
+            }
+
+            results.add(executor.submit(new Callable<Void>()
+            {
+                public Void call() throws Exception
+                {
+                    saveTableOfContents(topics);
+                    return null;
+                }
+            }));
+
+            for (Future<Void> result : results)
+                result.get();
+        }
+        catch (ExecutionException e)
+        {
+            throw (e.getCause() instanceof Exception) ? (Exception) e.getCause() : e;
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+    }
+
     /**
      * Selects heading paragraphs that must become topic starts.
      * We can't modify them in this loop, we have to remember them in an array first.
@@ -203,21 +286,7 @@ class Worker
         {
             Section section = mDoc.getSections().get(sectionIdx);
 
-            String paraText = section.getBody().getFirstParagraph().getText();
-
-            // The text of the heading paragaph is used to generate the HTML file name.
-            String fileName = makeTopicFileName(paraText);
-            if ("".equals(fileName))
-                fileName = "UNTITLED SECTION " + sectionIdx;
-
-            fileName = new File(mDstDir, fileName + ".html").getPath();
-
-            // The text of the heading paragraph is also used to generate the title for the TOC.
-            String title = makeTopicTitle(paraText);
-            if ("".equals(title))
-                title = "UNTITLED SECTION " + sectionIdx;
-
-            Topic topic = new Topic(title, fileName);
+            Topic topic = createTopic(section, sectionIdx);
             topics.add(topic);
 
             saveHtmlTopic(section, topic);
@@ -226,6 +295,28 @@ class Worker
         return topics;
     }
 
+    /**
+     * Creates the Topic object for a section from the text of its heading paragraph.
+     */
+    private Topic createTopic(Section section, int sectionIdx) throws Exception
+    {
+        String paraText = section.getBody().getFirstParagraph().getText();
+
+        // The text of the heading paragaph is used to generate the HTML file name.
+        String fileName = makeTopicFileName(paraText);
+        if ("".equals(fileName))
+            fileName = "UNTITLED SECTION " + sectionIdx;
+
+        fileName = new File(mDstDir, fileName + ".html").getPath();
+
+        // The text of the heading paragraph is also used to generate the title for the TOC.
+        String title = makeTopicTitle(paraText);
+        if ("".equals(title))
+            title = "UNTITLED SECTION " + sectionIdx;
+
+        return new Topic(title, fileName);
+    }
+
     /**
      * Leaves alphanumeric characters, replaces white space with underscore
      * and removes all other characters from a string.
@@ -257,6 +348,14 @@ class Worker
      * Any embedded images are saved as separate files in the same folder as the HTML file.
      */
     private static void saveHtmlTopic(Section section, Topic topic) throws Exception
+    {
+        saveHtmlTopicDocument(createHtmlTopicDocument(section, topic), topic);
+    }
+
+    /**
+     * Copies one section of a document into a new document that holds just this topic.
+     */
+    private static Document createHtmlTopicDocument(Section section, Topic topic) throws Exception
     {
         Document dummyDoc = new Document();
         dummyDoc.removeAllChildren();
@@ -264,6 +363,15 @@ class Worker
 
         dummyDoc.getBuiltInDocumentProperties().setTitle(topic.getTitle());
 
+        return dummyDoc;
+    }
+
+    /**
+     * Saves a topic document as an HTML file.
+     * Any embedded images are saved as separate files in the same folder as the HTML file.
+     */
+    private static void saveHtmlTopicDocument(Document dummyDoc, Topic topic) throws Exception
+    {
         HtmlSaveOptions saveOptions = new HtmlSaveOptions();
         saveOptions.setPrettyFormat(true);
         // This is to allow headings to appear to the left of main text.
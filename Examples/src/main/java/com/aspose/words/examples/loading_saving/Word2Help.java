@@ -14,6 +14,11 @@ import javax.xml.transform.stream.StreamResult;
 import java.io.*;
 import java.text.MessageFormat;
 import java.util.ArrayList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -260,48 +265,12 @@ class RegularExpressions
      */
     public static Pattern getHtmlTitle() throws Exception
     {
-        if (gHtmlTitle == null)
-        {
-            gHtmlTitle = Pattern.compile(HTML_TITLE_PATTERN,
-                    Pattern.CASE_INSENSITIVE);
-        }
         return gHtmlTitle;
     }
 
-    /**
-     * Regular expression specifying html head.
-     */
-    public static Pattern getHtmlHead() throws Exception
-    {
-        if (gHtmlHead == null)
-        {
-            gHtmlHead = Pattern.compile(HTML_HEAD_PATTERN,
-                    Pattern.CASE_INSENSITIVE);
-        }
-        return gHtmlHead;
-    }
-
-    /**
-     * Regular expression specifying space right after div keyword in the first div declaration of html body.
-     */
-    public static Pattern getHtmlBodyDivStart() throws Exception
-    {
-        if (gHtmlBodyDivStart == null)
-        {
-            gHtmlBodyDivStart = Pattern.compile(HTML_BODY_DIV_START_PATTERN,
-                    Pattern.CASE_INSENSITIVE);
-        }
-        return gHtmlBodyDivStart;
-    }
-
+    // The patterns are compiled once when the class is loaded, so they can be shared by topics written in parallel.
     private static final String HTML_TITLE_PATTERN = "(?<=\\<title\\>).*?(?=\\</title\\>)";
-    private static Pattern gHtmlTitle;
-
-    private static final String HTML_HEAD_PATTERN = "\\<head\\>.*?\\</head\\>";
-    private static Pattern gHtmlHead;
-
-    private static final String HTML_BODY_DIV_START_PATTERN = "(?<=\\<body\\>\\s{0,200}\\<div)\\s";
-    private static Pattern gHtmlBodyDivStart;
+    private static final Pattern gHtmlTitle = Pattern.compile(HTML_TITLE_PATTERN, Pattern.CASE_INSENSITIVE);
 }
 //ExEnd:RegularExpressions
 
@@ -397,7 +366,7 @@ class TopicWord2Help
 
     public void writeHtml(String htmlHeader, String htmlBanner, String htmlFooter, String outDir) throws Exception
     {
-        String fileName = new File(outDir,  getFileName()).getAbsolutePath();
+        final String fileName = getFileName();
 
         HtmlSaveOptions saveOptions = new HtmlSaveOptions();
         saveOptions.setPrettyFormat(true);
@@ -405,46 +374,39 @@ class TopicWord2Help
         saveOptions.setAllowNegativeIndent(true);
         // Disable headers and footers.
         saveOptions.setExportHeadersFootersMode(ExportHeadersFootersMode.NONE);
+        // The HTML is written to a stream, so images must be told where to go. They are saved next to the
+        // HTML file and named after the topic without its extension, e.g. "Topic.001.png", as they would be
+        // when saving to a file.
+        final String imageBaseName = fileName.substring(0, fileName.lastIndexOf('.'));
+        saveOptions.setImagesFolder(outDir);
+        saveOptions.setImagesFolderAlias(".");
+        saveOptions.setImageSavingCallback(new IImageSavingCallback()
+        {
+            private int mImageCount;
 
-        // Export the document to HTML.
-        mTopicDoc.save(fileName, saveOptions);
-
-        // We need to modify the HTML string, read HTML back.
-        String html;
-        FileInputStream reader = null;
-
-        try{
-            reader = new FileInputStream(fileName);
-            byte[] fileBytes = new byte[reader.available()];
-            reader.read(fileBytes);
-            html = new String(fileBytes);
-        }
-
-        finally { if (reader != null) reader.close(); }
+            public void imageSaving(ImageSavingArgs args) throws Exception
+            {
+                String imageFileName = args.getImageFileName();
+                String extension = imageFileName.substring(imageFileName.lastIndexOf('.'));
+                args.setImageFileName(imageBaseName + String.format(".%03d", ++mImageCount) + extension);
+            }
+        });
 
         // Builds the HTML <head> element.
-        String header = htmlHeader.replaceFirst(RegularExpressions.getHtmlTitle().pattern(), mTitle);
-
-        // Applies the new <head> element instead of the original one.
-        html = html.replaceFirst(RegularExpressions.getHtmlHead().pattern(), header);
-        html = html.replaceFirst(RegularExpressions.getHtmlBodyDivStart().pattern(), " id=\"nstext\"");
-
+        String header = RegularExpressions.getHtmlTitle().matcher(htmlHeader).replaceFirst(Matcher.quoteReplacement(mTitle));
         String banner = htmlBanner.replace("###TOPIC_NAME###", mTitle);
 
-        // Add the standard banner.
-        html = html.replace("<body>", "<body>" + banner);
-
-        // Add the standard footer.
-        html = html.replace("</body>", htmlFooter + "</body>");
-
-        FileOutputStream writer = null;
-
-        try{
-            writer = new FileOutputStream(fileName);
-            writer.write(html.getBytes());
+        // Export the document to HTML. The head, banner and footer are spliced in while the HTML is being written.
+        OutputStream stream = new HtmlTopicOutputStream(
+                new BufferedOutputStream(new FileOutputStream(new File(outDir, fileName))), header, banner, htmlFooter);
+        try
+        {
+            mTopicDoc.save(stream, saveOptions);
+        }
+        finally
+        {
+            stream.close();
         }
-
-        finally { if (writer != null) writer.close(); }
     }
 
     /**
@@ -488,6 +450,197 @@ class TopicWord2Help
     private final int mHeadingLevel;
 }
 //ExEnd:TopicWord2Help
+//ExStart:HtmlTopicOutputStream
+/**
+ * Rewrites the HTML of a topic in a single forward pass while it is being saved.
+ *
+ * The <head> element is replaced with the topic header, the banner is inserted right after <body>,
+ * the first <div> of the body gets the "nstext" id and the footer is inserted before </body>.
+ * This gives the same result as the RegularExpressions patterns applied to the whole HTML string,
+ * but no copy of the HTML is kept in memory. The tags are plain ASCII, so they are matched on the
+ * UTF-8 bytes written by Aspose.Words. Only the bytes of a tag that might be starting are held back.
+ */
+class HtmlTopicOutputStream extends FilterOutputStream
+{
+    public HtmlTopicOutputStream(OutputStream out, String header, String banner, String footer) throws Exception
+    {
+        super(out);
+        mHeader = header.getBytes("UTF-8");
+        mBanner = banner.getBytes("UTF-8");
+        mFooter = footer.getBytes("UTF-8");
+    }
+
+    @Override
+    public void write(int b) throws IOException
+    {
+        switch (mState)
+        {
+            case SEEK_HEAD:
+                if (matchTag(b, HEAD_START, true))
+                {
+                    out.write(mHeader);
+                    mState = SKIP_HEAD;
+                }
+                break;
+            case SKIP_HEAD:
+                // The original head is dropped up to and including its end tag.
+                if (matchTag(b, HEAD_END, false))
+                    mState = SEEK_BODY;
+                break;
+            case SEEK_BODY:
+                if (matchTag(b, BODY_START, true))
+                {
+                    out.write(BODY_START);
+                    out.write(mBanner);
+                    mState = SEEK_DIV;
+                }
+                break;
+            case SEEK_DIV:
+                writeSeekingDiv(b);
+                break;
+            case SEEK_BODY_END:
+                if (matchTag(b, BODY_END, true))
+                {
+                    out.write(mFooter);
+                    out.write(BODY_END);
+                    mState = DONE;
+                }
+                break;
+            default:
+                out.write(b);
+                break;
+        }
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException
+    {
+        if (mState == DONE)
+        {
+            out.write(b, off, len);
+            return;
+        }
+
+        for (int i = 0; i < len; i++)
+            write(b[off + i]);
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+        if (mState != SKIP_HEAD)
+            flushPending();
+        super.close();
+    }
+
+    /**
+     * Feeds one byte to the matcher of a tag. Returns true when the whole tag has been matched.
+     * All tags start with '<' and contain no other '<', so after a mismatch the match can only restart at the
+     * current byte.
+     */
+    private boolean matchTag(int b, byte[] tag, boolean passThrough) throws IOException
+    {
+        if (toLowerCase(b) == tag[mMatched])
+        {
+            mPending[mPendingLength++] = (byte) b;
+            mMatched++;
+
+            if (mMatched < tag.length)
+                return false;
+
+            mPendingLength = 0;
+            mMatched = 0;
+            return true;
+        }
+
+        if (passThrough)
+            flushPending();
+        mPendingLength = 0;
+        mMatched = 0;
+
+        if (b == '<')
+        {
+            mPending[mPendingLength++] = (byte) b;
+            mMatched = 1;
+        }
+        else if (passThrough)
+        {
+            out.write(b);
+        }
+
+        return false;
+    }
+
+    /**
+     * Looks for up to 200 whitespace characters, "<div" and one more whitespace character right after <body>.
+     * That whitespace character is replaced with the id attribute.
+     */
+    private void writeSeekingDiv(int b) throws IOException
+    {
+        if (mMatched == 0 && isWhitespace(b) && mPendingLength < 200)
+        {
+            mPending[mPendingLength++] = (byte) b;
+        }
+        else if (mMatched < DIV_START.length && toLowerCase(b) == DIV_START[mMatched])
+        {
+            mPending[mPendingLength++] = (byte) b;
+            mMatched++;
+        }
+        else if (mMatched == DIV_START.length && isWhitespace(b))
+        {
+            flushPending();
+            out.write(NSTEXT_ID);
+            mState = SEEK_BODY_END;
+        }
+        else
+        {
+            // The body does not start with a div, leave it as it is.
+            flushPending();
+            mState = SEEK_BODY_END;
+            write(b);
+        }
+    }
+
+    private void flushPending() throws IOException
+    {
+        out.write(mPending, 0, mPendingLength);
+        mPendingLength = 0;
+        mMatched = 0;
+    }
+
+    private static int toLowerCase(int b)
+    {
+        return (b >= 'A' && b <= 'Z') ? b + ('a' - 'A') : b & 0xFF;
+    }
+
+    private static boolean isWhitespace(int b)
+    {
+        return b == ' ' || b == '\t' || b == '\n' || b == '\r' || b == '\f' || b == 0x0B;
+    }
+
+    private static final int SEEK_HEAD = 0;
+    private static final int SKIP_HEAD = 1;
+    private static final int SEEK_BODY = 2;
+    private static final int SEEK_DIV = 3;
+    private static final int SEEK_BODY_END = 4;
+    private static final int DONE = 5;
+
+    private static final byte[] HEAD_START = {'<', 'h', 'e', 'a', 'd', '>'};
+    private static final byte[] HEAD_END = {'<', '/', 'h', 'e', 'a', 'd', '>'};
+    private static final byte[] BODY_START = {'<', 'b', 'o', 'd', 'y', '>'};
+    private static final byte[] BODY_END = {'<', '/', 'b', 'o', 'd', 'y', '>'};
+    private static final byte[] DIV_START = {'<', 'd', 'i', 'v'};
+    private static final byte[] NSTEXT_ID = {' ', 'i', 'd', '=', '"', 'n', 's', 't', 'e', 'x', 't', '"'};
+
+    private final byte[] mHeader;
+    private final byte[] mBanner;
+    private final byte[] mFooter;
+    private final byte[] mPending = new byte[256];
+    private int mPendingLength;
+    private int mMatched;
+    private int mState = SEEK_HEAD;
+}
+//ExEnd:HtmlTopicOutputStream
 //ExStart:TopicCollection
 /**
  * This is the main class.
@@ -540,14 +693,50 @@ class TopicCollection
     }
 
     /**
-     * Saves all topics as HTML files.
+     * Saves all topics as HTML files, using one thread per processor.
      */
     public void writeHtml(String outDir) throws Exception
     {
-        for (TopicWord2Help topic : (Iterable<TopicWord2Help>) mTopics)
+        writeHtml(outDir, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Saves all topics as HTML files. Every topic is a separate document, so topics are written in parallel.
+     *
+     * @param parallelism The number of threads that write topics.
+     */
+    public void writeHtml(final String outDir, int parallelism) throws Exception
+    {
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism);
+        ArrayList<Future<Void>> results = new ArrayList<Future<Void>>();
+
+        try
+        {
+            for (final TopicWord2Help topic : (Iterable<TopicWord2Help>) mTopics)
+            {
+                if (topic.isHeadingOnly())
+                    continue;
+
+                results.add(executor.submit(new Callable<Void>()
+                {
+                    public Void call() throws Exception
+                    {
+                        topic.writeHtml(mHtmlHeader, mHtmlBanner, mHtmlFooter, outDir);
+                        return null;
+                    }
+                }));
+            }
+
+            for (Future<Void> result : results)
+                result.get();
+        }
+        catch (ExecutionException e)
+        {
+            throw (e.getCause() instanceof Exception) ? (Exception) e.getCause() : e;
+        }
+        finally
         {
-            if (!topic.isHeadingOnly())
-                topic.writeHtml(mHtmlHeader, mHtmlBanner, mHtmlFooter, outDir);
+            executor.shutdownNow();
         }
     }
 
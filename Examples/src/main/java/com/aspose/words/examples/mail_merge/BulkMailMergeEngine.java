@@ -0,0 +1,232 @@
+package com.aspose.words.examples.mail_merge;
+
+import com.aspose.words.Document;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+//ExStart:
+/**
+ * Produces one merged document per row of a JDBC ResultSet using a pool of
+ * worker threads.
+ *
+ * The calling thread reads rows from the ResultSet into a bounded queue. When
+ * the queue is full the reader blocks until a worker takes a row, so the number
+ * of rows held in memory never exceeds the queue capacity. Every worker owns a
+ * private copy of the template and clones that copy for each row, so workers
+ * never share a Document instance.
+ */
+public class BulkMailMergeEngine {
+	/**
+	 * Creates a new engine for the specified template.
+	 *
+	 * @param template
+	 *            The template document. It is cloned once per worker and is not
+	 *            modified.
+	 * @param parallelism
+	 *            The number of worker threads.
+	 * @param queueCapacity
+	 *            The maximum number of rows that are read ahead of the workers.
+	 */
+	public BulkMailMergeEngine(Document template, int parallelism, int queueCapacity) {
+		if (parallelism < 1)
+			throw new IllegalArgumentException("parallelism must be at least 1.");
+		if (queueCapacity < 1)
+			throw new IllegalArgumentException("queueCapacity must be at least 1.");
+
+		mTemplate = template;
+		mParallelism = parallelism;
+		mQueueCapacity = queueCapacity;
+	}
+
+	/**
+	 * Creates a new engine with one worker per available processor and a queue
+	 * that holds four rows per worker.
+	 */
+	public BulkMailMergeEngine(Document template) {
+		this(template, Runtime.getRuntime().availableProcessors(), Runtime.getRuntime().availableProcessors() * 4);
+	}
+
+	/**
+	 * Merges every remaining row of the ResultSet and saves each result. Every
+	 * call has its own queue and workers, so several ResultSets can be merged
+	 * with the same engine at the same time.
+	 *
+	 * @param rs
+	 *            The rows to merge. Only forward reads are performed.
+	 * @param outputPattern
+	 *            A MessageFormat pattern for the output file names, e.g.
+	 *            "TestFile Out {0}.doc". The argument is the 1-based row number.
+	 * @return The number of documents produced and the time it took.
+	 */
+	public MergeResult execute(ResultSet rs, String outputPattern) throws Exception {
+		// Column names are the same for every row, so they are read only once.
+		// The label is the alias given in the query, e.g. "SELECT x AS Name".
+		ResultSetMetaData metaData = rs.getMetaData();
+		String[] fieldNames = new String[metaData.getColumnCount()];
+		for (int i = 0; i < fieldNames.length; i++)
+			fieldNames[i] = metaData.getColumnLabel(i + 1);
+
+		BlockingQueue<MergeRow> queue = new ArrayBlockingQueue<MergeRow>(mQueueCapacity);
+		AtomicReference<Exception> failure = new AtomicReference<Exception>();
+
+		ExecutorService executor = Executors.newFixedThreadPool(mParallelism);
+		List<Future<Integer>> workers = new ArrayList<Future<Integer>>(mParallelism);
+		long startTime = System.nanoTime();
+
+		try {
+			for (int i = 0; i < mParallelism; i++) {
+				// Clone on this thread so that the template itself is never touched by the workers.
+				Document workerTemplate = (Document) mTemplate.deepClone(true);
+				workers.add(executor.submit(new MergeWorker(queue, failure, workerTemplate, fieldNames, outputPattern)));
+			}
+
+			int rowNumber = 0;
+			while (failure.get() == null && rs.next()) {
+				Object[] values = new Object[fieldNames.length];
+				for (int i = 0; i < values.length; i++)
+					values[i] = rs.getObject(i + 1);
+
+				enqueue(queue, failure, new MergeRow(++rowNumber, values));
+			}
+
+			// One end marker per worker.
+			for (int i = 0; i < mParallelism; i++)
+				enqueue(queue, failure, MergeRow.END);
+
+			int produced = 0;
+			for (Future<Integer> worker : workers)
+				produced += worker.get();
+
+			return new MergeResult(produced, System.nanoTime() - startTime);
+		} catch (ExecutionException e) {
+			throw (e.getCause() instanceof Exception) ? (Exception) e.getCause() : e;
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	/**
+	 * The outcome of one call to execute.
+	 */
+	public static class MergeResult {
+		MergeResult(int documentCount, long elapsedNanos) {
+			mDocumentCount = documentCount;
+			mElapsedNanos = elapsedNanos;
+		}
+
+		/**
+		 * The number of documents produced.
+		 */
+		public int getDocumentCount() {
+			return mDocumentCount;
+		}
+
+		/**
+		 * The time the merge took in nanoseconds.
+		 */
+		public long getElapsedNanos() {
+			return mElapsedNanos;
+		}
+
+		/**
+		 * The throughput of the merge in documents per second.
+		 */
+		public double getDocumentsPerSecond() {
+			if (mElapsedNanos == 0)
+				return 0;
+
+			return mDocumentCount / (mElapsedNanos / 1e9);
+		}
+
+		private final int mDocumentCount;
+		private final long mElapsedNanos;
+	}
+
+	/**
+	 * Blocks until the queue accepts the row. Gives up if a worker has failed,
+	 * since nobody may be left to drain the queue.
+	 */
+	private static void enqueue(BlockingQueue<MergeRow> queue, AtomicReference<Exception> failure, MergeRow row) throws Exception {
+		while (!queue.offer(row, 100, TimeUnit.MILLISECONDS)) {
+			if (failure.get() != null)
+				return;
+		}
+	}
+
+	/**
+	 * Takes rows from the queue until it sees the end marker. Returns the number
+	 * of documents it saved.
+	 */
+	private static class MergeWorker implements Callable<Integer> {
+		MergeWorker(BlockingQueue<MergeRow> queue, AtomicReference<Exception> failure, Document template, String[] fieldNames, String outputPattern) {
+			mQueue = queue;
+			mFailure = failure;
+			mWorkerTemplate = template;
+			mFieldNames = fieldNames;
+			mOutputPattern = outputPattern;
+		}
+
+		public Integer call() throws Exception {
+			int count = 0;
+			try {
+				while (true) {
+					MergeRow row = mQueue.take();
+					if (row == MergeRow.END)
+						return count;
+
+					// Clone the template instead of loading it from disk (for speed).
+					Document dstDoc = (Document) mWorkerTemplate.deepClone(true);
+					dstDoc.getMailMerge().execute(mFieldNames, row.mValues);
+					// The number is passed as a string, so that it is not formatted with grouping separators.
+					dstDoc.save(MessageFormat.format(mOutputPattern, String.valueOf(row.mNumber)));
+					count++;
+				}
+			} catch (Exception e) {
+				mFailure.compareAndSet(null, e);
+				throw e;
+			}
+		}
+
+		private final BlockingQueue<MergeRow> mQueue;
+		private final AtomicReference<Exception> mFailure;
+		private final Document mWorkerTemplate;
+		private final String[] mFieldNames;
+		private final String mOutputPattern;
+	}
+
+	/**
+	 * The values of a single row together with its position in the ResultSet.
+	 */
+	private static class MergeRow {
+		MergeRow(int number, Object[] values) {
+			mNumber = number;
+			mValues = values;
+		}
+
+		static final MergeRow END = new MergeRow(0, null);
+
+		final int mNumber;
+		final Object[] mValues;
+	}
+
+	/**
+	 * Instance variables.
+	 */
+	private final Document mTemplate;
+	private final int mParallelism;
+	private final int mQueueCapacity;
+}
+//ExEnd:
@@ -6,17 +6,14 @@ import com.aspose.words.examples.Utils;
 import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.ResultSet;
-import java.sql.Statement;
-
-import java.sql.*;
 import java.text.MessageFormat;
-import java.util.Hashtable;
 
 
 public class MultipleDocsInMailMerge
 {
     //ExStart:
     private static Connection mConnection;
+    private static final int FETCH_SIZE = 500;
     private static final String dataDir = Utils.getSharedDataDir(NestedMailMergeRegions.class) + "MailMerge/";
 
     public static void main(String[] args) throws Exception
@@ -38,53 +35,29 @@ public class MultipleDocsInMailMerge
         // A record of how many documents that have been generated so far.
         int counter = 1;
 
+        // Wrap the cursor so that values are read straight from the current row.
+        ResultSetMailMergeDataSource dataSource = new ResultSetMailMergeDataSource(rs, "Customers");
+
         // Loop though all records in the data source.
-        while(rs.next())
+        while(dataSource.moveNext())
         {
             // Clone the template instead of loading it from disk (for speed).
             Document dstDoc = (Document)doc.deepClone(true);
 
-            // Extract the data from the current row of the ResultSet into a Hashtable.
-            Hashtable dataMap = getRowData(rs);
-
-            // Execute mail merge.
-            dstDoc.getMailMerge().execute(keySetToArray(dataMap), dataMap.values().toArray());
+            // Execute mail merge with the current row only.
+            dstDoc.getMailMerge().execute(dataSource.getCurrentRecord());
 
             // Save the document.
             dstDoc.save(MessageFormat.format(dataDir + "TestFile Out {0}.doc", counter++));
         }
     }
 
-    /**
-	 * Creates a Hashtable from the name and value of each column in the current row of the ResultSet.
-	 */
-    public static Hashtable getRowData(ResultSet rs) throws Exception
-    {
-        ResultSetMetaData metaData = rs.getMetaData();
-        Hashtable values = new Hashtable();
-
-        for(int i = 1; i <= metaData.getColumnCount(); i++)
-        {
-            values.put(metaData.getColumnName(i), rs.getObject(i));
-        }
-
-        return values;
-    }
-
-    /**
-	 * Utility function that returns the keys of a Hashtable as an array of Strings.
-	 */
-    public static String[] keySetToArray(Hashtable table)
-    {
-        return (String[])table.keySet().toArray(new String[table.size()]);
-    }
-
     /**
      * Executes a query to the demo database using a new statement and returns
      * the result in a ResultSet.
      */
     protected static ResultSet executeQuery(String query) throws Exception {
-        return createStatement().executeQuery(query);
+        return ResultSetMailMergeDataSource.executeForwardOnly(mConnection, query, FETCH_SIZE);
     }
 
     /**
@@ -97,12 +70,5 @@ public class MultipleDocsInMailMerge
         // Create a connection to the database.
         mConnection = DriverManager.getConnection(connectionString);
     }
-
-    /**
-     * Utility function that creates a statement to the database.
-     */
-    public static Statement createStatement() throws Exception {
-        return mConnection.createStatement(ResultSet.TYPE_SCROLL_INSENSITIVE, ResultSet.CONCUR_READ_ONLY);
-    }
     //ExEnd:
 }
\ No newline at end of file
@@ -5,7 +5,6 @@ import com.aspose.words.examples.Utils;
 
 import java.sql.*;
 import java.text.MessageFormat;
-import java.util.Hashtable;
 
 //ExStart:
 public class ProduceMultipleDocumentsDuringMailMerge {
@@ -15,6 +14,7 @@ public class ProduceMultipleDocumentsDuringMailMerge {
 	public static void main(String[] args) throws Exception {
 
 		produceMultipleDocuments(dataDir, "TestFile.doc");
+		produceMultipleDocumentsInParallel(dataDir, "TestFile.doc");
 	}
 
 	public static void produceMultipleDocuments(String dataDir, String srcDoc) throws Exception {
@@ -27,43 +27,35 @@ public class ProduceMultipleDocumentsDuringMailMerge {
 		// A record of how many documents that have been generated so far.
 		int counter = 1;
 
+		// Wrap the cursor so that values are read straight from the current row.
+		ResultSetMailMergeDataSource dataSource = new ResultSetMailMergeDataSource(rs, "Customers");
+
 		// Loop though all records in the data source.
-		while (rs.next()) {
+		while (dataSource.moveNext()) {
 			// Clone the template instead of loading it from disk (for speed).
 			Document dstDoc = (Document) doc.deepClone(true);
 
-			// Extract the data from the current row of the ResultSet into a Hashtable.
-			Hashtable dataMap = getRowData(rs);
-
-			// Execute mail merge.
-			dstDoc.getMailMerge().execute(keySetToArray(dataMap), dataMap.values().toArray());
+			// Execute mail merge with the current row only.
+			dstDoc.getMailMerge().execute(dataSource.getCurrentRecord());
 
 			// Save the document.
 			dstDoc.save(MessageFormat.format(dataDir + "TestFile Out {0}.doc", counter++));
 		}
 	}
 
-	/**
-	 * Creates a Hashtable from the name and value of each column in the current
-	 * row of the ResultSet.
-	 */
-	public static Hashtable getRowData(ResultSet rs) throws Exception {
-		ResultSetMetaData metaData = rs.getMetaData();
-		Hashtable values = new Hashtable();
+	public static void produceMultipleDocumentsInParallel(String dataDir, String srcDoc) throws Exception {
+		// Open the database connection.
+		ResultSet rs = getData(dataDir, "SELECT * FROM Customers");
 
-		for (int i = 1; i <= metaData.getColumnCount(); i++) {
-			values.put(metaData.getColumnName(i), rs.getObject(i));
-		}
+		// Open the template document.
+		Document doc = new Document(dataDir + srcDoc);
 
-		return values;
-	}
+		// Merge and save the rows on one worker per processor, reading ahead at most 64 rows.
+		BulkMailMergeEngine engine = new BulkMailMergeEngine(doc, Runtime.getRuntime().availableProcessors(), 64);
+		BulkMailMergeEngine.MergeResult result = engine.execute(rs, dataDir + "TestFile Parallel Out {0}.doc");
 
-	/**
-	 * Utility function that returns the keys of a Hashtable as an array of
-	 * Strings.
-	 */
-	public static String[] keySetToArray(Hashtable table) {
-		return (String[]) table.keySet().toArray(new String[table.size()]);
+		System.out.println(MessageFormat.format("Produced {0} documents at {1} documents per second.",
+				result.getDocumentCount(), result.getDocumentsPerSecond()));
 	}
 
 	/**
@@ -77,9 +69,8 @@ public class ProduceMultipleDocumentsDuringMailMerge {
 		// DSN-less DB connection.
 		Connection connection = DriverManager.getConnection(connectionString);
 
-		Statement statement = connection.createStatement(ResultSet.TYPE_SCROLL_INSENSITIVE, ResultSet.CONCUR_READ_ONLY);
-
-		return statement.executeQuery(query);
+		// Read forward only and fetch rows in batches so the whole result is never buffered.
+		return ResultSetMailMergeDataSource.executeForwardOnly(connection, query, 500);
 	}
 }
 //ExEnd:
\ No newline at end of file
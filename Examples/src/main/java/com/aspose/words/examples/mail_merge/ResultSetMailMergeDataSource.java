@@ -0,0 +1,139 @@
+package com.aspose.words.examples.mail_merge;
+
+import com.aspose.words.IMailMergeDataSource;
+import com.aspose.words.ref.Ref;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.Statement;
+import java.util.HashMap;
+import java.util.Locale;
+
+//ExStart:
+/**
+ * A custom mail merge data source that reads values straight from a forward-only
+ * JDBC cursor.
+ *
+ * Column metadata is read once when the data source is created and kept as a map
+ * from column name to column index. Values are then fetched from the current row
+ * of the ResultSet on demand, so no per-row copy of the data is made and memory
+ * use does not depend on the number of rows.
+ */
+public class ResultSetMailMergeDataSource implements IMailMergeDataSource {
+	/**
+	 * Creates a new data source over the specified ResultSet.
+	 *
+	 * @param resultSet
+	 *            The rows to merge. The cursor should be positioned before the
+	 *            first row.
+	 * @param tableName
+	 *            The name of the mail merge region filled from this data source.
+	 */
+	public ResultSetMailMergeDataSource(ResultSet resultSet, String tableName) throws Exception {
+		mResultSet = resultSet;
+		mTableName = tableName;
+
+		ResultSetMetaData metaData = resultSet.getMetaData();
+		for (int i = 1; i <= metaData.getColumnCount(); i++) {
+			String columnName = metaData.getColumnLabel(i);
+			mColumnIndexes.put(columnName, i);
+			// Merge field names are case insensitive.
+			mColumnIndexes.put(columnName.toUpperCase(Locale.ROOT), i);
+		}
+	}
+
+	/**
+	 * Runs a query on a forward-only, read-only statement that fetches rows from
+	 * the database in batches of the specified size instead of buffering the
+	 * whole result.
+	 */
+	public static ResultSet executeForwardOnly(Connection connection, String query, int fetchSize) throws Exception {
+		Statement statement = connection.createStatement(ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+		statement.setFetchSize(fetchSize);
+
+		return statement.executeQuery(query);
+	}
+
+	/**
+	 * The name of the data source. Used by Aspose.Words only when executing
+	 * mail merge with repeatable regions.
+	 */
+	public String getTableName() {
+		return mTableName;
+	}
+
+	/**
+	 * Moves the cursor to the next row.
+	 */
+	public boolean moveNext() throws Exception {
+		return mResultSet.next();
+	}
+
+	/**
+	 * Aspose.Words calls this method to get a value for every data field.
+	 */
+	public boolean getValue(String fieldName, Ref<Object> fieldValue) throws Exception {
+		Integer columnIndex = mColumnIndexes.get(fieldName);
+		if (columnIndex == null)
+			columnIndex = mColumnIndexes.get(fieldName.toUpperCase(Locale.ROOT));
+
+		if (columnIndex == null) {
+			// Field does not exist in the data source, return false.
+			// No value will be merged for this field and it is left over in the document.
+			return false;
+		}
+
+		fieldValue.set(mResultSet.getObject(columnIndex));
+		return true;
+	}
+
+	/**
+	 * A flat ResultSet has no child tables.
+	 */
+	public IMailMergeDataSource getChildDataSource(String tableName) {
+		return null;
+	}
+
+	/**
+	 * Returns a data source that contains only the row the cursor is currently
+	 * on. Use it to produce a separate document for every row without copying
+	 * the row's values.
+	 */
+	public IMailMergeDataSource getCurrentRecord() {
+		return new CurrentRecord();
+	}
+
+	/**
+	 * A view of the current row that yields exactly one record.
+	 */
+	private class CurrentRecord implements IMailMergeDataSource {
+		public String getTableName() {
+			return mTableName;
+		}
+
+		public boolean moveNext() {
+			boolean hasRecord = !mIsConsumed;
+			mIsConsumed = true;
+			return hasRecord;
+		}
+
+		public boolean getValue(String fieldName, Ref<Object> fieldValue) throws Exception {
+			return ResultSetMailMergeDataSource.this.getValue(fieldName, fieldValue);
+		}
+
+		public IMailMergeDataSource getChildDataSource(String tableName) {
+			return null;
+		}
+
+		private boolean mIsConsumed;
+	}
+
+	/**
+	 * Instance variables.
+	 */
+	private final ResultSet mResultSet;
+	private final String mTableName;
+	private final HashMap<String, Integer> mColumnIndexes = new HashMap<String, Integer>();
+}
+//ExEnd:
@@ -5,6 +5,7 @@ import com.aspose.words.examples.Utils;
 
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
+import java.io.FileInputStream;
 //ExStart:
 /**
  * This sample demonstrates how to execute mail merge with data from an XML data
@@ -35,6 +36,12 @@ public class XMLMailMerge {
 		// Save the output document.
 		doc.save(dataDir + "TestFile Out.doc");
 
+		// For large feeds, stream the records with StAX instead of building a DOM.
+		// Only the record being merged is kept in memory.
+		Document streamedDoc = new Document(dataDir + "TestFile.doc");
+		streamedDoc.getMailMerge().execute(new XmlStreamMailMergeDataTable(new FileInputStream(dataDir + "Customers.xml"), "customer"));
+		streamedDoc.save(dataDir + "TestFile Streamed Out.doc");
+
 		System.out.println("Mail merge performed successfully.");
 	}
 }
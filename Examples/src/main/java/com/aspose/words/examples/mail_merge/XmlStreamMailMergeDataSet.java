@@ -0,0 +1,31 @@
+package com.aspose.words.examples.mail_merge;
+
+import com.aspose.words.IMailMergeDataSource;
+import com.aspose.words.IMailMergeDataSourceRoot;
+
+import java.io.BufferedInputStream;
+import java.io.FileInputStream;
+
+//ExStart:
+public class XmlStreamMailMergeDataSet implements IMailMergeDataSourceRoot
+{
+    /**
+     * Creates a new XmlStreamMailMergeDataSet for the specified XML file. All regions in the document can be
+     * merged at once using this class. The file is streamed once for every region that is merged, so it is
+     * never loaded into memory as a whole.
+     *
+     * @param xmlFileName The path of the XML data file.
+     */
+    public XmlStreamMailMergeDataSet(String xmlFileName)
+    {
+        mXmlFileName = xmlFileName;
+    }
+
+    public IMailMergeDataSource getDataSource(String tableName) throws Exception
+    {
+        return new XmlStreamMailMergeDataTable(new BufferedInputStream(new FileInputStream(mXmlFileName)), tableName);
+    }
+
+    private final String mXmlFileName;
+}
+//ExEnd:
@@ -0,0 +1,243 @@
+package com.aspose.words.examples.mail_merge;
+
+import com.aspose.words.IMailMergeDataSource;
+import com.aspose.words.ref.Ref;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+//ExStart:
+/**
+ * A custom mail merge data source that streams records from an XML document
+ * using StAX instead of loading the whole document into a DOM.
+ *
+ * An instance of this class represents a single table in the data source and in
+ * the template. Records are the elements directly under the root element whose
+ * name matches the table name. Only the current record is held in memory: its
+ * attributes and text-only child elements become fields that are looked up by
+ * name, and any child elements that contain further elements are kept as rows
+ * of nested tables returned by getChildDataSource. Elements of other tables are
+ * skipped without being stored, so memory use depends on the size of a single
+ * record and not on the size of the feed.
+ */
+public class XmlStreamMailMergeDataTable implements IMailMergeDataSource, Closeable {
+	/**
+	 * Creates a new data source that reads the specified table from an XML stream.
+	 *
+	 * @param xmlStream
+	 *            The XML data. The stream is closed when all records have been
+	 *            read or when close is called.
+	 * @param tableName
+	 *            The name of the elements in the data source where the data of
+	 *            the region is extracted from.
+	 */
+	public XmlStreamMailMergeDataTable(InputStream xmlStream, String tableName) throws Exception {
+		mStream = xmlStream;
+		mReader = createInputFactory().createXMLStreamReader(xmlStream);
+		mTableName = tableName;
+	}
+
+	/**
+	 * The name of the data source. Used by Aspose.Words only when executing
+	 * mail merge with repeatable regions.
+	 */
+	public String getTableName() {
+		return mTableName;
+	}
+
+	/**
+	 * Reads the next record of this table from the stream.
+	 */
+	public boolean moveNext() throws Exception {
+		mCurrentRecord = null;
+
+		while (mReader != null && mReader.hasNext()) {
+			int event = mReader.next();
+
+			if (event == XMLStreamConstants.START_ELEMENT) {
+				mDepth++;
+
+				// Records are the children of the root element.
+				if (mDepth == 2 && mTableName.equals(mReader.getLocalName())) {
+					mCurrentRecord = XmlRecord.read(mReader);
+					mDepth--;
+					return true;
+				}
+			} else if (event == XMLStreamConstants.END_ELEMENT) {
+				mDepth--;
+			}
+		}
+
+		close();
+		return false;
+	}
+
+	/**
+	 * Aspose.Words calls this method to get a value for every data field.
+	 */
+	public boolean getValue(String fieldName, Ref<Object> fieldValue) {
+		return mCurrentRecord != null && mCurrentRecord.getValue(fieldName, fieldValue);
+	}
+
+	/**
+	 * Returns the rows of a nested table of the current record, or null if the
+	 * record has no such child elements.
+	 */
+	public IMailMergeDataSource getChildDataSource(String tableName) {
+		return (mCurrentRecord == null) ? null : mCurrentRecord.getChildTable(tableName);
+	}
+
+	/**
+	 * Releases the reader and the underlying stream.
+	 */
+	public void close() throws IOException {
+		if (mReader == null)
+			return;
+
+		try {
+			mReader.close();
+		} catch (XMLStreamException e) {
+			throw new IOException(e);
+		} finally {
+			mReader = null;
+			mStream.close();
+		}
+	}
+
+	/**
+	 * Creates an input factory that does not resolve external entities.
+	 */
+	static XMLInputFactory createInputFactory() {
+		XMLInputFactory factory = XMLInputFactory.newInstance();
+		factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+		factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+		factory.setProperty(XMLInputFactory.IS_COALESCING, true);
+		return factory;
+	}
+
+	/**
+	 * A single record read from the stream together with its nested tables.
+	 */
+	private static class XmlRecord {
+		/**
+		 * Reads the element the reader is positioned on, up to and including its
+		 * end tag.
+		 */
+		static XmlRecord read(XMLStreamReader reader) throws XMLStreamException {
+			XmlRecord record = new XmlRecord();
+
+			// Attributes are fields too. Child elements of the same name take precedence.
+			for (int i = 0; i < reader.getAttributeCount(); i++)
+				record.mFields.put(reader.getAttributeLocalName(i), reader.getAttributeValue(i));
+
+			StringBuilder text = new StringBuilder();
+
+			while (true) {
+				int event = reader.next();
+
+				if (event == XMLStreamConstants.START_ELEMENT) {
+					String name = reader.getLocalName();
+					XmlRecord child = read(reader);
+
+					if (child.isLeaf())
+						record.mFields.put(name, child.mText);
+					else
+						record.addChild(name, child);
+				} else if (event == XMLStreamConstants.CHARACTERS || event == XMLStreamConstants.CDATA) {
+					text.append(reader.getText());
+				} else if (event == XMLStreamConstants.END_ELEMENT) {
+					if (record.isLeaf())
+						record.mText = text.toString();
+					return record;
+				}
+			}
+		}
+
+		boolean getValue(String fieldName, Ref<Object> fieldValue) {
+			String value = mFields.get(fieldName);
+			if (value == null) {
+				// Field does not exist in the data source, return false.
+				// No value will be merged for this field and it is left over in the document.
+				return false;
+			}
+
+			fieldValue.set(value);
+			return true;
+		}
+
+		IMailMergeDataSource getChildTable(String tableName) {
+			List<XmlRecord> rows = (mChildTables == null) ? null : mChildTables.get(tableName);
+			return (rows == null) ? null : new XmlRecordTable(tableName, rows);
+		}
+
+		private boolean isLeaf() {
+			return mFields.isEmpty() && mChildTables == null;
+		}
+
+		private void addChild(String tableName, XmlRecord child) {
+			if (mChildTables == null)
+				mChildTables = new HashMap<String, List<XmlRecord>>();
+
+			List<XmlRecord> rows = mChildTables.get(tableName);
+			if (rows == null) {
+				rows = new ArrayList<XmlRecord>();
+				mChildTables.put(tableName, rows);
+			}
+			rows.add(child);
+		}
+
+		private final HashMap<String, String> mFields = new HashMap<String, String>();
+		private HashMap<String, List<XmlRecord>> mChildTables;
+		private String mText;
+	}
+
+	/**
+	 * A nested table of the current record. Its rows were read together with the
+	 * parent record.
+	 */
+	private static class XmlRecordTable implements IMailMergeDataSource {
+		XmlRecordTable(String tableName, List<XmlRecord> rows) {
+			mTableName = tableName;
+			mRows = rows;
+		}
+
+		public String getTableName() {
+			return mTableName;
+		}
+
+		public boolean moveNext() {
+			mIndex++;
+			return mIndex < mRows.size();
+		}
+
+		public boolean getValue(String fieldName, Ref<Object> fieldValue) {
+			return mRows.get(mIndex).getValue(fieldName, fieldValue);
+		}
+
+		public IMailMergeDataSource getChildDataSource(String tableName) {
+			return mRows.get(mIndex).getChildTable(tableName);
+		}
+
+		private final String mTableName;
+		private final List<XmlRecord> mRows;
+		private int mIndex = -1;
+	}
+
+	/**
+	 * Instance variables.
+	 */
+	private final InputStream mStream;
+	private final String mTableName;
+	private XMLStreamReader mReader;
+	private XmlRecord mCurrentRecord;
+	private int mDepth;
+}
+//ExEnd:
@@ -0,0 +1,513 @@
+package com.aspose.words.examples.programming_documents.find_replace;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.regex.MatchResult;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import com.aspose.words.CompositeNode;
+import com.aspose.words.Document;
+import com.aspose.words.INodeChangingCallback;
+import com.aspose.words.Node;
+import com.aspose.words.NodeChangingArgs;
+import com.aspose.words.NodeType;
+import com.aspose.words.Paragraph;
+import com.aspose.words.Run;
+
+/**
+ * The text of every paragraph of a document, with the runs it comes from, kept for many searches.
+ *
+ * Every call of Range.replace walks the document and joins the text of its runs again. The index joins the text of
+ * a paragraph once and keeps it until the paragraph changes, so the following searches only match patterns against
+ * text that is ready. Replacements made through the index update the text and the runs of their paragraph in place.
+ * Runs and paragraphs that are inserted into or removed from the document are noticed through the node changing
+ * callback, and only the paragraphs they belong to are joined again.
+ *
+ * Every inline node of a paragraph other than a run, e.g. a field start, a bookmark or a shape, is a {@link #BOUNDARY}
+ * character in its text, so that matches do not span fields and the like.
+ *
+ * Changes of the text of a run do not insert or remove nodes. When the text is changed other than through the index,
+ * e.g. with Run.setText or Range.replace, the change must be reported with {@link #markChanged(Node)}.
+ */
+public class DocumentTextIndex implements INodeChangingCallback {
+	/**
+	 * Stands for an inline node other than a run, e.g. a field start or a shape, in the text of a paragraph.
+	 * Matches never contain it.
+	 */
+	public static final char BOUNDARY = '\uFFFC';
+
+	/**
+	 * A match of a pattern in the text of a paragraph.
+	 */
+	public static class TextMatch {
+		TextMatch(Paragraph paragraph, MatchResult match) {
+			mParagraph = paragraph;
+			mMatch = match;
+		}
+
+		public Paragraph getParagraph() {
+			return mParagraph;
+		}
+
+		/**
+		 * Gets the match. Its positions are offsets in the text of the paragraph.
+		 */
+		public MatchResult getMatch() {
+			return mMatch;
+		}
+
+		private final Paragraph mParagraph;
+		private final MatchResult mMatch;
+	}
+
+	/**
+	 * Computes the replacement of each match.
+	 */
+	public interface MatchEvaluator {
+		/**
+		 * Returns the text that replaces the match, or null to leave the match as it is.
+		 */
+		String replacing(TextMatch match) throws Exception;
+	}
+
+	/**
+	 * Creates the index of the document. The text of a paragraph is joined when it is first searched.
+	 * The document's node changing callback is replaced by the index, which passes all notifications on to the
+	 * previous callback.
+	 */
+	public DocumentTextIndex(Document doc) {
+		mDocument = doc;
+		mPreviousCallback = doc.getNodeChangingCallback();
+		doc.setNodeChangingCallback(this);
+	}
+
+	/**
+	 * Finds all matches of the pattern in the paragraphs of the document, in document order.
+	 */
+	public List<TextMatch> find(Pattern pattern) throws Exception {
+		ArrayList<TextMatch> matches = new ArrayList<TextMatch>();
+		for (ParagraphText paragraphText : getParagraphs()) {
+			for (MatchResult match : paragraphText.find(pattern))
+				matches.add(new TextMatch(paragraphText.getParagraph(), match));
+		}
+
+		return matches;
+	}
+
+	/**
+	 * Replaces all matches of the pattern with the text. The replacement takes the formatting of the run where the
+	 * match starts. Returns the number of replacements made.
+	 */
+	public int replace(Pattern pattern, final String replacement) throws Exception {
+		return replace(pattern, new MatchEvaluator() {
+			public String replacing(TextMatch match) {
+				return replacement;
+			}
+		});
+	}
+
+	/**
+	 * Replaces all matches of the pattern with the text returned by the evaluator. The evaluator is called in
+	 * document order. Returns the number of replacements made.
+	 */
+	public int replace(Pattern pattern, MatchEvaluator evaluator) throws Exception {
+		int count = 0;
+		for (ParagraphText paragraphText : getParagraphs()) {
+			ArrayList<MatchResult> matches = new ArrayList<MatchResult>();
+			ArrayList<String> replacements = new ArrayList<String>();
+			for (MatchResult match : paragraphText.find(pattern)) {
+				String replacement = evaluator.replacing(new TextMatch(paragraphText.getParagraph(), match));
+				if (replacement != null) {
+					matches.add(match);
+					replacements.add(replacement);
+				}
+			}
+
+			// From the end of the paragraph, so that the positions of the matches before are not moved.
+			for (int i = matches.size() - 1; i >= 0; i--)
+				paragraphText.replace(matches.get(i).start(), matches.get(i).end(), replacements.get(i));
+
+			count += matches.size();
+		}
+
+		return count;
+	}
+
+	/**
+	 * Returns the runs that contain the text of the match and nothing else, e.g. to format the match. Runs that
+	 * contain text before or after the match are split. The match must have been found after the last replacement
+	 * in its paragraph.
+	 */
+	public List<Run> getRuns(TextMatch match) throws Exception {
+		return getParagraphText(match.getParagraph()).splitRuns(match.getMatch().start(), match.getMatch().end());
+	}
+
+	/**
+	 * Records a change of the text of a node that does not insert or remove nodes. The text of the paragraph that
+	 * contains the node, or of all paragraphs in the node, is joined again when it is next searched.
+	 */
+	public void markChanged(Node node) {
+		Node paragraph = node.getNodeType() == NodeType.PARAGRAPH ? node : node.getAncestor(NodeType.PARAGRAPH);
+		if (paragraph != null) {
+			markChangedParagraph(paragraph);
+		} else if (node.isComposite()) {
+			for (Object child : ((CompositeNode) node).getChildNodes(NodeType.PARAGRAPH, true))
+				markChangedParagraph((Node) child);
+		}
+	}
+
+	/**
+	 * Restores the node changing callback the document had before the index was created.
+	 */
+	public void detach() {
+		mDocument.setNodeChangingCallback(mPreviousCallback);
+	}
+
+	public void nodeInserting(NodeChangingArgs args) {
+		if (mPreviousCallback != null)
+			mPreviousCallback.nodeInserting(args);
+	}
+
+	public void nodeInserted(NodeChangingArgs args) {
+		nodeChanged(args.getNode());
+
+		if (mPreviousCallback != null)
+			mPreviousCallback.nodeInserted(args);
+	}
+
+	public void nodeRemoving(NodeChangingArgs args) {
+		nodeChanged(args.getNode());
+
+		if (mPreviousCallback != null)
+			mPreviousCallback.nodeRemoving(args);
+	}
+
+	public void nodeRemoved(NodeChangingArgs args) {
+		if (mPreviousCallback != null)
+			mPreviousCallback.nodeRemoved(args);
+	}
+
+	/**
+	 * A node inside a paragraph changes the text of that paragraph, a composite node may add or remove paragraphs.
+	 */
+	private void nodeChanged(Node node) {
+		if (node.getNodeType() != NodeType.PARAGRAPH) {
+			Node paragraph = node.getAncestor(NodeType.PARAGRAPH);
+			if (paragraph != null)
+				markChangedParagraph(paragraph);
+		}
+
+		if (node.isComposite())
+			mIsParagraphListChanged = true;
+	}
+
+	private void markChangedParagraph(Node paragraph) {
+		ParagraphText paragraphText = mParagraphTexts.get(paragraph);
+
+		// The index changes the runs itself while it replaces text, it knows their new text already.
+		if (paragraphText != null && !paragraphText.mIsUpdating)
+			paragraphText.mIsChanged = true;
+	}
+
+	/**
+	 * Returns the paragraphs of the document in document order. The texts of the paragraphs that have not changed
+	 * are kept.
+	 */
+	List<ParagraphText> getParagraphs() {
+		if (!mIsParagraphListChanged)
+			return mParagraphList;
+
+		IdentityHashMap<Node, ParagraphText> paragraphTexts = new IdentityHashMap<Node, ParagraphText>();
+		ArrayList<ParagraphText> paragraphList = new ArrayList<ParagraphText>();
+		for (Object paragraph : mDocument.getChildNodes(NodeType.PARAGRAPH, true)) {
+			ParagraphText paragraphText = mParagraphTexts.get(paragraph);
+			if (paragraphText == null)
+				paragraphText = new ParagraphText((Paragraph) paragraph);
+
+			paragraphTexts.put((Node) paragraph, paragraphText);
+			paragraphList.add(paragraphText);
+		}
+
+		mParagraphTexts = paragraphTexts;
+		mParagraphList = paragraphList;
+		mIsParagraphListChanged = false;
+		return mParagraphList;
+	}
+
+	private ParagraphText getParagraphText(Paragraph paragraph) {
+		getParagraphs();
+
+		ParagraphText paragraphText = mParagraphTexts.get(paragraph);
+		if (paragraphText == null)
+			throw new IllegalArgumentException("The paragraph is not in the document.");
+
+		return paragraphText;
+	}
+
+	/**
+	 * The text of a paragraph and the position of every node in it. The text of a run is its text, every other inline
+	 * node, e.g. a field start, a bookmark or a shape, is one {@link #BOUNDARY} character. The runs of smart tags,
+	 * custom XML and content controls in the paragraph are part of its text. The text is joined when it is first used
+	 * after the paragraph has changed.
+	 */
+	static class ParagraphText {
+		ParagraphText(Paragraph paragraph) {
+			mParagraph = paragraph;
+		}
+
+		Paragraph getParagraph() {
+			return mParagraph;
+		}
+
+		String getText() {
+			if (mIsChanged)
+				joinText();
+
+			return mText;
+		}
+
+		/**
+		 * Finds all matches of the pattern that do not contain a boundary. The pattern sees the whole text, so
+		 * anchors and lookarounds work as in the text of the paragraph.
+		 */
+		List<MatchResult> find(Pattern pattern) {
+			Matcher matcher = pattern.matcher(getText());
+			matcher.useTransparentBounds(true);
+			matcher.useAnchoringBounds(false);
+
+			ArrayList<MatchResult> matches = new ArrayList<MatchResult>();
+			int segmentStart = 0;
+			for (int i = 0; i <= mNodes.size(); i++) {
+				if (i < mNodes.size() && mNodes.get(i).getNodeType() == NodeType.RUN)
+					continue;
+
+				matcher.region(segmentStart, mNodeStarts[i]);
+				while (matcher.find())
+					matches.add(matcher.toMatchResult());
+
+				if (i < mNodes.size())
+					segmentStart = mNodeStarts[i + 1];
+			}
+
+			return matches;
+		}
+
+		/**
+		 * Replaces the text between the start and the end with the replacement, which takes the formatting of the run
+		 * where the text starts. Runs that are left empty are removed, and the text and runs are updated in place.
+		 * The text must not contain a boundary.
+		 */
+		void replace(int start, int end, String replacement) {
+			getText();
+
+			if (start == end) {
+				insert(start, replacement);
+				return;
+			}
+
+			int firstRun = findNode(start);
+			int lastRun = findNode(end - 1);
+
+			mIsUpdating = true;
+			try {
+				Run run = (Run) mNodes.get(firstRun);
+				String runText = run.getText();
+				int runStart = mNodeStarts[firstRun];
+				if (firstRun == lastRun) {
+					run.setText(runText.substring(0, start - runStart) + replacement + runText.substring(end - runStart));
+				} else {
+					run.setText(runText.substring(0, start - runStart) + replacement);
+
+					Run endRun = (Run) mNodes.get(lastRun);
+					String endRunText = endRun.getText();
+					int endOffset = end - mNodeStarts[lastRun];
+					int removedFrom = firstRun + 1;
+					int removedTo = lastRun;
+					if (endOffset == endRunText.length())
+						removedTo++;
+					else
+						endRun.setText(endRunText.substring(endOffset));
+
+					for (int i = removedFrom; i < removedTo; i++)
+						mNodes.get(i).remove();
+					mNodes.subList(removedFrom, removedTo).clear();
+				}
+			} finally {
+				mIsUpdating = false;
+			}
+
+			mText = mText.substring(0, start) + replacement + mText.substring(end);
+			updateNodeStarts(firstRun);
+		}
+
+		/**
+		 * Inserts the text at the position, e.g. for a match of an empty string. The text is added to the run that
+		 * contains the position or ends there, or else to a new run.
+		 */
+		private void insert(int position, String text) {
+			if (text.length() == 0)
+				return;
+
+			int index = findNode(position);
+			int offset = mNodes.isEmpty() ? 0 : position - mNodeStarts[index];
+			if (!mNodes.isEmpty() && mNodes.get(index).getNodeType() != NodeType.RUN && offset == 0
+					&& index > 0 && mNodes.get(index - 1).getNodeType() == NodeType.RUN) {
+				index--;
+				offset = position - mNodeStarts[index];
+			}
+
+			mIsUpdating = true;
+			try {
+				if (!mNodes.isEmpty() && mNodes.get(index).getNodeType() == NodeType.RUN) {
+					Run run = (Run) mNodes.get(index);
+					run.setText(run.getText().substring(0, offset) + text + run.getText().substring(offset));
+				} else {
+					// There is no run at the position, e.g. between two fields or in an empty paragraph.
+					Run run = new Run(mParagraph.getDocument(), text);
+					if (mNodes.isEmpty()) {
+						mParagraph.appendChild(run);
+					} else if (offset == 0) {
+						mNodes.get(index).getParentNode().insertBefore(run, mNodes.get(index));
+					} else {
+						mNodes.get(index).getParentNode().insertAfter(run, mNodes.get(index));
+						index++;
+					}
+
+					mNodes.add(index, run);
+				}
+			} finally {
+				mIsUpdating = false;
+			}
+
+			mText = mText.substring(0, position) + text + mText.substring(position);
+			updateNodeStarts(index);
+		}
+
+		/**
+		 * Splits the runs at the start and the end and returns the runs between them. The text does not change.
+		 * The text between the start and the end must not contain a boundary.
+		 */
+		List<Run> splitRuns(int start, int end) throws Exception {
+			getText();
+			if (start == end)
+				return new ArrayList<Run>();
+
+			mIsUpdating = true;
+			try {
+				splitRun(findNode(end - 1), end);
+				int firstRun = splitRun(findNode(start), start);
+
+				ArrayList<Run> runs = new ArrayList<Run>();
+				for (Node run : mNodes.subList(firstRun, findNode(end - 1) + 1))
+					runs.add((Run) run);
+
+				return runs;
+			} finally {
+				mIsUpdating = false;
+			}
+		}
+
+		/**
+		 * Splits the run at the position of the text, unless the run starts there. Returns the index of the run that
+		 * starts at the position.
+		 */
+		private int splitRun(int runIndex, int position) throws Exception {
+			Run run = (Run) mNodes.get(runIndex);
+			int offset = position - mNodeStarts[runIndex];
+			if (offset == 0 || offset == run.getText().length())
+				return offset == 0 ? runIndex : runIndex + 1;
+
+			Run afterRun = (Run) run.deepClone(true);
+			afterRun.setText(run.getText().substring(offset));
+			run.setText(run.getText().substring(0, offset));
+			run.getParentNode().insertAfter(afterRun, run);
+
+			mNodes.add(runIndex + 1, afterRun);
+			updateNodeStarts(runIndex);
+			return runIndex + 1;
+		}
+
+		private void joinText() {
+			mNodes.clear();
+			StringBuilder builder = new StringBuilder();
+			joinText(mParagraph, builder);
+
+			mText = builder.toString();
+			updateNodeStarts(0);
+			mIsChanged = false;
+		}
+
+		private void joinText(CompositeNode parent, StringBuilder builder) {
+			for (Node child = parent.getFirstChild(); child != null; child = child.getNextSibling()) {
+				switch (child.getNodeType()) {
+					case NodeType.RUN:
+						mNodes.add(child);
+						builder.append(((Run) child).getText());
+						break;
+					case NodeType.SMART_TAG:
+					case NodeType.CUSTOM_XML_MARKUP:
+					case NodeType.STRUCTURED_DOCUMENT_TAG:
+						joinText((CompositeNode) child, builder);
+						break;
+					default:
+						// Matches must not span fields, bookmarks, shapes, footnotes and the like.
+						mNodes.add(child);
+						builder.append(BOUNDARY);
+						break;
+				}
+			}
+		}
+
+		/**
+		 * Computes the positions of the nodes from the node at the index on, the nodes before it have not moved.
+		 */
+		private void updateNodeStarts(int fromNode) {
+			if (mNodeStarts.length != mNodes.size() + 1) {
+				int[] nodeStarts = new int[mNodes.size() + 1];
+				System.arraycopy(mNodeStarts, 0, nodeStarts, 0, Math.min(fromNode + 1, Math.min(mNodeStarts.length, nodeStarts.length)));
+				mNodeStarts = nodeStarts;
+			}
+
+			for (int i = fromNode; i < mNodes.size(); i++)
+				mNodeStarts[i + 1] = mNodeStarts[i] + getLength(mNodes.get(i));
+		}
+
+		private static int getLength(Node node) {
+			return node.getNodeType() == NodeType.RUN ? ((Run) node).getText().length() : 1;
+		}
+
+		/**
+		 * Returns the index of the node that contains the character at the position.
+		 */
+		private int findNode(int position) {
+			int low = 0;
+			int high = mNodes.size() - 1;
+			while (low < high) {
+				int middle = (low + high + 1) >>> 1;
+				if (mNodeStarts[middle] <= position)
+					low = middle;
+				else
+					high = middle - 1;
+			}
+
+			return low;
+		}
+
+		private final Paragraph mParagraph;
+		// The runs and the other inline nodes of the paragraph, in document order.
+		private final ArrayList<Node> mNodes = new ArrayList<Node>();
+		// The position of every node in the text, and the length of the text at the end.
+		private int[] mNodeStarts = new int[1];
+		private String mText;
+		private boolean mIsChanged = true;
+		private boolean mIsUpdating;
+	}
+
+	private final Document mDocument;
+	private final INodeChangingCallback mPreviousCallback;
+	private IdentityHashMap<Node, ParagraphText> mParagraphTexts = new IdentityHashMap<Node, ParagraphText>();
+	private ArrayList<ParagraphText> mParagraphList = new ArrayList<ParagraphText>();
+	private boolean mIsParagraphListChanged = true;
+}
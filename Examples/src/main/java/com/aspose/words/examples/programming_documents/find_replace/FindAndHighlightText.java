@@ -27,6 +27,31 @@ public class FindAndHighlightText {
 		// Save the output document.
 		doc.save(dataDir + "TestFile_out.doc");
 		//ExEnd:FindAndHighlightText
+
+		highlightManyPhrases();
+	}
+
+	public static void highlightManyPhrases() throws Exception {
+		//ExStart:HighlightManyPhrases
+		Document doc = new Document(dataDir + "TestFile.doc");
+
+		// The text of the document is read once and searched for every phrase.
+		DocumentTextIndex index = new DocumentTextIndex(doc);
+
+		String[] phrases = { "your document", "Aspose.Words", "find and replace" };
+		Color[] colors = { Color.YELLOW, Color.GREEN, Color.CYAN };
+		for (int i = 0; i < phrases.length; i++) {
+			Pattern regex = Pattern.compile(Pattern.quote(phrases[i]), Pattern.CASE_INSENSITIVE);
+			for (DocumentTextIndex.TextMatch match : index.find(regex)) {
+				// The runs of the match are split from the text around it, the text of the paragraph stays the same.
+				for (Run run : index.getRuns(match))
+					run.getFont().setHighlightColor(colors[i]);
+			}
+		}
+
+		index.detach();
+		doc.save(dataDir + "TestFile.HighlightManyPhrases_out.doc");
+		//ExEnd:HighlightManyPhrases
 	}
 }
 //ExStart:ReplaceEvaluatorFindAndHighlight
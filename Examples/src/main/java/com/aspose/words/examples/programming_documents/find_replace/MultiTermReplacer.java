@@ -0,0 +1,363 @@
+package com.aspose.words.examples.programming_documents.find_replace;
+
+import java.util.ArrayList;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import com.aspose.words.CompositeNode;
+import com.aspose.words.NodeType;
+import com.aspose.words.Paragraph;
+
+/**
+ * Replaces many literal terms in a document in one pass.
+ *
+ * Range.replace scans the whole document once for every pattern, so replacing thousands of terms means thousands
+ * of scans. The replacer compiles all terms into one Aho-Corasick automaton and reads the text of every paragraph
+ * only once, whatever the number of terms. Like Range.replace, it finds matches that span several runs of a paragraph,
+ * puts the replacement into the first run of the match and keeps the formatting of that run. Matches do not span
+ * fields, bookmarks, shapes or other inline nodes between the runs.
+ *
+ * Where terms overlap, the match that starts first wins, and of the matches that start at the same position the
+ * longest one. Matches do not overlap each other and replaced text is not searched again.
+ */
+public class MultiTermReplacer {
+	/**
+	 * Computes the replacement of a term each time the term is found.
+	 */
+	public interface TermEvaluator {
+		/**
+		 * Returns the text that replaces the match, or null to leave the match as it is.
+		 *
+		 * @param term        The term as it was added to the replacer.
+		 * @param matchedText The text of the document that matched the term. It differs from the term only in case.
+		 * @param paragraph   The paragraph that contains the match.
+		 */
+		String replacing(String term, String matchedText, Paragraph paragraph) throws Exception;
+	}
+
+	/**
+	 * @param isMatchCase       True if the terms are found only in the case they are written in.
+	 * @param isWholeWordsOnly  True if the terms are found only where they are not part of a longer word.
+	 */
+	public MultiTermReplacer(boolean isMatchCase, boolean isWholeWordsOnly) {
+		mIsMatchCase = isMatchCase;
+		mIsWholeWordsOnly = isWholeWordsOnly;
+	}
+
+	/**
+	 * Adds a term that is replaced with a fixed text. Adding a term again replaces its previous replacement.
+	 */
+	public void addTerm(String term, String replacement) {
+		putTerm(term, replacement);
+	}
+
+	/**
+	 * Adds a term whose replacement is computed by the evaluator.
+	 */
+	public void addTerm(String term, TermEvaluator evaluator) {
+		putTerm(term, evaluator);
+	}
+
+	public void addTerms(Map<String, String> replacements) {
+		for (Map.Entry<String, String> replacement : replacements.entrySet())
+			putTerm(replacement.getKey(), replacement.getValue());
+	}
+
+	/**
+	 * Replaces all terms in the paragraphs of the node, including the node itself if it is a paragraph.
+	 * Returns the number of replacements made.
+	 */
+	public int replace(CompositeNode node) throws Exception {
+		if (mTransitionKeys == null)
+			compile();
+
+		// The paragraphs are collected first, the replacements change the nodes of the document.
+		ArrayList<Paragraph> paragraphs = new ArrayList<Paragraph>();
+		if (node.getNodeType() == NodeType.PARAGRAPH)
+			paragraphs.add((Paragraph) node);
+		for (Object paragraph : node.getChildNodes(NodeType.PARAGRAPH, true))
+			paragraphs.add((Paragraph) paragraph);
+
+		int count = 0;
+		for (Paragraph paragraph : paragraphs)
+			count += replace(new DocumentTextIndex.ParagraphText(paragraph));
+
+		return count;
+	}
+
+	/**
+	 * Replaces all terms in the paragraphs of the index. The text of the paragraphs that has not changed since it was
+	 * last searched is not read from the document again.
+	 */
+	public int replace(DocumentTextIndex index) throws Exception {
+		if (mTransitionKeys == null)
+			compile();
+
+		int count = 0;
+		for (DocumentTextIndex.ParagraphText paragraphText : index.getParagraphs())
+			count += replace(paragraphText);
+
+		return count;
+	}
+
+	private int replace(DocumentTextIndex.ParagraphText paragraphText) throws Exception {
+		// The text of the paragraph is the text of its runs, so a match can span runs with different formatting.
+		// No term contains the boundary that stands for the other inline nodes, so no match spans them.
+		String text = paragraphText.getText();
+		if (text.length() == 0)
+			return 0;
+
+		char[] chars = mIsMatchCase ? text.toCharArray() : toLowerCase(text);
+
+		// Replacements are computed in document order and made from the end of the paragraph,
+		// so that the positions of the matches before are not moved.
+		ArrayList<int[]> matches = new ArrayList<int[]>();
+		ArrayList<String> replacements = new ArrayList<String>();
+		int[] match = new int[3];
+		for (int position = 0; findMatch(chars, position, match); position = match[1]) {
+			String replacement = getReplacement(match[2], text.substring(match[0], match[1]), paragraphText.getParagraph());
+			if (replacement != null) {
+				matches.add(new int[] { match[0], match[1] });
+				replacements.add(replacement);
+			}
+		}
+
+		for (int i = matches.size() - 1; i >= 0; i--)
+			paragraphText.replace(matches.get(i)[0], matches.get(i)[1], replacements.get(i));
+
+		return matches.size();
+	}
+
+	private String getReplacement(int term, String matchedText, Paragraph paragraph) throws Exception {
+		Object replacement = mReplacements.get(term);
+		if (replacement instanceof TermEvaluator)
+			return ((TermEvaluator) replacement).replacing(mTerms.get(term), matchedText, paragraph);
+
+		return (String) replacement;
+	}
+
+	/**
+	 * Finds the match that starts first at or after the position, and the longest of them if several start there.
+	 * Puts its start, end and term into the result and returns true if there is a match.
+	 */
+	private boolean findMatch(char[] text, int position, int[] result) {
+		int state = 0;
+		int bestStart = -1;
+		for (int i = position; i < text.length; i++) {
+			state = nextState(state, text[i]);
+
+			// The states with a term are ordered from the longest term, which starts first, to the shortest.
+			int end = i + 1;
+			for (int s = mTermAt[state] >= 0 ? state : mOutput[state]; s >= 0; s = mOutput[s]) {
+				int start = end - mDepth[s];
+				if (bestStart >= 0 && start > bestStart)
+					break;
+				if (mIsWholeWordsOnly && !isWholeWord(text, start, end))
+					continue;
+
+				bestStart = start;
+				result[0] = start;
+				result[1] = end;
+				result[2] = mTermAt[s];
+				break;
+			}
+
+			// Matches that end later start after the longest prefix of a term that ends here,
+			// so none of them can start at or before the best match.
+			if (bestStart >= 0 && end - mDepth[state] > bestStart)
+				return true;
+		}
+
+		return bestStart >= 0;
+	}
+
+	private int nextState(int state, char c) {
+		while (true) {
+			int next = getTransition(state, c);
+			if (next >= 0)
+				return next;
+			if (state == 0)
+				return 0;
+
+			state = mFailure[state];
+		}
+	}
+
+	/**
+	 * Returns the state the trie goes to from the state with the character, or -1 if there is no such transition.
+	 */
+	private int getTransition(int state, char c) {
+		long key = transitionKey(state, c);
+		int mask = mTransitionKeys.length - 1;
+		for (int i = indexFor(key, mask); mTransitionKeys[i] != NO_TRANSITION; i = (i + 1) & mask) {
+			if (mTransitionKeys[i] == key)
+				return mTransitionStates[i];
+		}
+
+		return -1;
+	}
+
+	/**
+	 * Stores the transitions in an open addressing table of primitive keys and states, so that scanning the text
+	 * does not box a key for every character.
+	 */
+	private void setTransitions(HashMap<Long, Integer> transitions) {
+		// Keep the table at most half full so that probe sequences stay short.
+		int capacity = 2;
+		while (capacity < transitions.size() * 2)
+			capacity *= 2;
+
+		mTransitionKeys = new long[capacity];
+		mTransitionStates = new int[capacity];
+		Arrays.fill(mTransitionKeys, NO_TRANSITION);
+
+		int mask = capacity - 1;
+		for (Map.Entry<Long, Integer> transition : transitions.entrySet()) {
+			long key = transition.getKey();
+			int i = indexFor(key, mask);
+			while (mTransitionKeys[i] != NO_TRANSITION)
+				i = (i + 1) & mask;
+
+			mTransitionKeys[i] = key;
+			mTransitionStates[i] = transition.getValue();
+		}
+	}
+
+	private static int indexFor(long key, int mask) {
+		// Spread the key so that the transitions of one state do not cluster.
+		int h = (int) (key ^ (key >>> 32)) * 0x9E3779B9;
+		return (h ^ (h >>> 16)) & mask;
+	}
+
+	private static boolean isWholeWord(char[] text, int start, int end) {
+		return (start == 0 || !Character.isLetterOrDigit(text[start - 1])) && (end == text.length || !Character.isLetterOrDigit(text[end]));
+	}
+
+	/**
+	 * Builds the trie of the terms and links every state to the state of its longest proper suffix that is a prefix
+	 * of a term, and to the state of its longest proper suffix that is a term.
+	 */
+	private void compile() {
+		HashMap<Long, Integer> transitions = new HashMap<Long, Integer>();
+		ArrayList<Integer> depths = new ArrayList<Integer>();
+		ArrayList<Integer> terms = new ArrayList<Integer>();
+		depths.add(0);
+		terms.add(-1);
+
+		for (int term = 0; term < mTerms.size(); term++) {
+			String termText = mTerms.get(term);
+			char[] chars = mIsMatchCase ? termText.toCharArray() : toLowerCase(termText);
+
+			int state = 0;
+			for (char c : chars) {
+				Integer next = transitions.get(transitionKey(state, c));
+				if (next == null) {
+					next = depths.size();
+					depths.add(depths.get(state) + 1);
+					terms.add(-1);
+					transitions.put(transitionKey(state, c), next);
+				}
+				state = next;
+			}
+
+			// Terms that differ only in case are the same term if the case does not matter, the first one is used.
+			if (terms.get(state) < 0)
+				terms.set(state, term);
+		}
+
+		int stateCount = depths.size();
+		mDepth = new int[stateCount];
+		mTermAt = new int[stateCount];
+		for (int i = 0; i < stateCount; i++) {
+			mDepth[i] = depths.get(i);
+			mTermAt[i] = terms.get(i);
+		}
+
+		// The children of every state, to visit the trie breadth first.
+		ArrayList<ArrayList<long[]>> children = new ArrayList<ArrayList<long[]>>(stateCount);
+		for (int i = 0; i < stateCount; i++)
+			children.add(null);
+		for (Map.Entry<Long, Integer> transition : transitions.entrySet()) {
+			int parent = (int) (transition.getKey() >>> 16);
+			if (children.get(parent) == null)
+				children.set(parent, new ArrayList<long[]>());
+			children.get(parent).add(new long[] { transition.getKey() & 0xFFFF, transition.getValue() });
+		}
+
+		setTransitions(transitions);
+		mFailure = new int[stateCount];
+		mOutput = new int[stateCount];
+		mOutput[0] = -1;
+
+		ArrayDeque<Integer> pendingStates = new ArrayDeque<Integer>();
+		pendingStates.add(0);
+		while (!pendingStates.isEmpty()) {
+			int parent = pendingStates.removeFirst();
+			if (children.get(parent) == null)
+				continue;
+
+			for (long[] child : children.get(parent)) {
+				char c = (char) child[0];
+				int state = (int) child[1];
+
+				mFailure[state] = parent == 0 ? 0 : nextState(mFailure[parent], c);
+				int failure = mFailure[state];
+				mOutput[state] = mTermAt[failure] >= 0 ? failure : mOutput[failure];
+
+				pendingStates.add(state);
+			}
+		}
+	}
+
+	private void putTerm(String term, Object replacement) {
+		if (term == null || term.length() == 0)
+			throw new IllegalArgumentException("A term must not be empty.");
+		if (term.indexOf(DocumentTextIndex.BOUNDARY) >= 0)
+			throw new IllegalArgumentException("A term must not contain DocumentTextIndex.BOUNDARY.");
+
+		Integer index = mTermIndexes.get(term);
+		if (index != null) {
+			mReplacements.set(index, replacement);
+			return;
+		}
+
+		mTermIndexes.put(term, mTerms.size());
+		mTerms.add(term);
+		mReplacements.add(replacement);
+		mTransitionKeys = null;
+	}
+
+	private static long transitionKey(int state, char c) {
+		return ((long) state << 16) | c;
+	}
+
+	private static char[] toLowerCase(String text) {
+		char[] chars = text.toCharArray();
+		for (int i = 0; i < chars.length; i++)
+			chars[i] = Character.toLowerCase(chars[i]);
+
+		return chars;
+	}
+
+	private final boolean mIsMatchCase;
+	private final boolean mIsWholeWordsOnly;
+	private final HashMap<String, Integer> mTermIndexes = new HashMap<String, Integer>();
+	private final ArrayList<String> mTerms = new ArrayList<String>();
+	// A replacement text or a TermEvaluator for each term.
+	private final ArrayList<Object> mReplacements = new ArrayList<Object>();
+
+	// Marks an empty slot of the transition table. Keys are never negative.
+	private static final long NO_TRANSITION = -1;
+
+	// The automaton, built when the terms are first used. The transitions are keyed by state and character.
+	private long[] mTransitionKeys;
+	private int[] mTransitionStates;
+	private int[] mFailure;
+	// The state of the longest proper suffix that is a term, or -1.
+	private int[] mOutput;
+	private int[] mDepth;
+	// The term that ends at each state, or -1.
+	private int[] mTermAt;
+}
@@ -23,6 +23,30 @@ public class ReplaceWithEvaluator {
 		doc.getRange().replace(Pattern.compile("[s|m]ad"), "", options);
 		doc.save(dataDir + "Range.ReplaceWithEvaluator_Out.doc");
 		//ExEnd:ReplaceWithEvaluator
+
+		replaceWithTextIndex();
+	}
+
+	public static void replaceWithTextIndex() throws Exception {
+		//ExStart:ReplaceWithTextIndex
+		Document doc = new Document(dataDir + "Range.ReplaceWithEvaluator.doc");
+
+		// The index keeps the text of the paragraphs between the passes and updates the paragraphs that are replaced in.
+		DocumentTextIndex index = new DocumentTextIndex(doc);
+
+		index.replace(Pattern.compile("[s|m]ad"), new DocumentTextIndex.MatchEvaluator() {
+			private int mMatchNumber;
+
+			public String replacing(DocumentTextIndex.TextMatch match) {
+				return match.getMatch().group() + Integer.toString(mMatchNumber++);
+			}
+		});
+		int count = index.replace(Pattern.compile("bad"), "good");
+		System.out.println("Replaced \"bad\" " + count + " times.");
+
+		index.detach();
+		doc.save(dataDir + "Range.ReplaceWithTextIndex_Out.doc");
+		//ExEnd:ReplaceWithTextIndex
 	}
 }
 //ExStart:MyReplaceEvaluator
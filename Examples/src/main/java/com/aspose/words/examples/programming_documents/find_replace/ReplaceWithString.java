@@ -3,8 +3,11 @@ package com.aspose.words.examples.programming_documents.find_replace;
 import com.aspose.words.Document;
 import com.aspose.words.FindReplaceDirection;
 import com.aspose.words.FindReplaceOptions;
+import com.aspose.words.Paragraph;
 import com.aspose.words.examples.Utils;
 
+import java.util.HashMap;
+
 public class ReplaceWithString {
 
 	public static final String dataDir = Utils.getSharedDataDir(ReplaceWithString.class) + "FindAndReplace/";
@@ -16,5 +19,32 @@ public class ReplaceWithString {
 		doc.getRange().replace("sad", "bad", new FindReplaceOptions(FindReplaceDirection.FORWARD));
 		doc.save(dataDir + "ReplaceWithString_out.doc");
 		//ExEnd:ReplaceWithString
+
+		replaceManyTerms();
+	}
+
+	public static void replaceManyTerms() throws Exception {
+		//ExStart:ReplaceManyTerms
+		Document doc = new Document(dataDir + "ReplaceWithString.doc");
+
+		// All terms are found in one pass over the document, however many there are.
+		HashMap<String, String> replacements = new HashMap<String, String>();
+		replacements.put("sad", "bad");
+		replacements.put("mad", "glad");
+		replacements.put("sadness", "happiness");
+
+		MultiTermReplacer replacer = new MultiTermReplacer(false, true);
+		replacer.addTerms(replacements);
+		replacer.addTerm("very", new MultiTermReplacer.TermEvaluator() {
+			public String replacing(String term, String matchedText, Paragraph paragraph) {
+				return matchedText.toUpperCase();
+			}
+		});
+
+		int count = replacer.replace(doc);
+		System.out.println("Replaced " + count + " terms.");
+
+		doc.save(dataDir + "ReplaceManyTerms_out.doc");
+		//ExEnd:ReplaceManyTerms
 	}
 }
\ No newline at end of file
@@ -15,8 +15,21 @@ import java.awt.geom.Point2D;
 import java.awt.image.BufferedImage;
 import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.math.BigInteger;
+import java.security.MessageDigest;
 import java.text.MessageFormat;
-import java.util.Iterator;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
 
 
 public class CompressImages
@@ -41,7 +54,14 @@ public class CompressImages
         final int jpegQuality = 90;
 
         // Resample images to desired ppi and save.
-        int count = Resampler.resample(doc, desiredPpi, jpegQuality);
+        List<ResampledShape> resampledShapes = Resampler.resample(doc, desiredPpi, jpegQuality, Runtime.getRuntime().availableProcessors());
+        int count = resampledShapes.size();
+
+        for (ResampledShape resampledShape : resampledShapes)
+        {
+            System.out.println(MessageFormat.format("Shape \"{0}\": original size {1}, new size {2}, saved {3} bytes.",
+                    resampledShape.getShape().getName(), resampledShape.getOriginalSize(), resampledShape.getNewSize(), resampledShape.getBytesSaved()));
+        }
 
         System.out.println(MessageFormat.format("Resampled {0} images.", count));
 
@@ -73,139 +93,272 @@ class Resampler
 {
     /**
      * Resamples all images in the document that are greater than the specified PPI (pixels per inch) to the specified PPI
-     * and converts them to JPEG with the specified quality setting.
+     * and converts them to JPEG with the specified quality setting. Uses one thread per processor.
      *
      * @param doc The document to process.
      * @param desiredPpi Desired pixels per inch. 220 high quality. 150 screen quality. 96 email quality.
      * @param jpegQuality 0 - 100% JPEG quality.
+     * @return The number of shapes whose image was replaced.
      */
     public static int resample(Document doc, int desiredPpi, int jpegQuality) throws Exception
     {
-        int count = 0;
+        return resample(doc, desiredPpi, jpegQuality, Runtime.getRuntime().availableProcessors()).size();
+    }
 
-        // Convert VML shapes.
-        for (Shape vmlShape : (Iterable<Shape>) doc.getChildNodes(NodeType.SHAPE, true))
+    /**
+     * Resamples all images in the document that are greater than the specified PPI (pixels per inch) to the specified PPI
+     * and converts them to JPEG with the specified quality setting.
+     *
+     * Every shape is visited once. Shapes whose images have identical bytes and that need the same output size are
+     * grouped by a hash of the image content, so each distinct image is decoded, scaled and encoded only once.
+     * The images are decoded by Aspose.Words on the calling thread, which also reads and updates the document, and
+     * are scaled and encoded on a pool of worker threads, each of which reuses its own JPEG writer. Only a few decoded
+     * images per worker wait to be encoded at a time.
+     *
+     * @param doc The document to process.
+     * @param desiredPpi Desired pixels per inch. 220 high quality. 150 screen quality. 96 email quality.
+     * @param jpegQuality 0 - 100% JPEG quality.
+     * @param parallelism The number of worker threads.
+     * @return The shapes whose image was replaced, with their old and new image sizes.
+     */
+    public static List<ResampledShape> resample(Document doc, int desiredPpi, final int jpegQuality, int parallelism) throws Exception
+    {
+        LinkedHashMap<String, ResampleJob> jobs = new LinkedHashMap<String, ResampleJob>();
+        for (Shape shape : (Iterable<Shape>) doc.getChildNodes(NodeType.SHAPE, true))
         {
-            // It is important to use this method to correctly get the picture shape size in points even if the picture is inside a group shape.
-            Point2D.Float shapeSizeInPoints = vmlShape.getSizeInPoints();
+            ResampleJob job;
+            try
+            {
+                job = createJob(shape, desiredPpi);
+            }
+            catch (Exception e)
+            {
+                // Log an error and continue if cannot process one of the images for whatever reason.
+                System.out.println("Error processing an image, ignoring. " + e.getMessage());
+                continue;
+            }
+
+            if (job == null)
+                continue;
 
-            if (resampleCore(vmlShape.getImageData(), shapeSizeInPoints, desiredPpi, jpegQuality))
-                count++;
+            ResampleJob sameImageJob = jobs.get(job.mKey);
+            if (sameImageJob != null)
+                sameImageJob.mShapes.add(shape);
+            else
+                jobs.put(job.mKey, job);
         }
 
-        // Convert DrawingML shapes.
-        for (com.aspose.words.Shape dmlShape : (Iterable<com.aspose.words.Shape>) doc.getChildNodes(NodeType.SHAPE, true))
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism);
+        final List<ImageWriter> writers = Collections.synchronizedList(new ArrayList<ImageWriter>());
+        final ThreadLocal<ImageWriter> threadWriter = new ThreadLocal<ImageWriter>()
+        {
+            @Override
+            protected ImageWriter initialValue()
+            {
+                ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+                writers.add(writer);
+                return writer;
+            }
+        };
+
+        final Semaphore pendingImages = new Semaphore(parallelism * 2);
+
+        try
         {
-            // In MS Word the size of a DrawingML shape is always in points at the moment.
-            Point2D.Float shapeSizeInPoints = dmlShape.getSizeInPoints();
-            if (resampleCore(dmlShape.getImageData(), shapeSizeInPoints, desiredPpi, jpegQuality))
-                count++;
+            LinkedHashMap<ResampleJob, Future<byte[]>> results = new LinkedHashMap<ResampleJob, Future<byte[]>>();
+            for (final ResampleJob job : jobs.values())
+            {
+                // Aspose.Words decodes every image format it can insert, e.g. TIFF and CMYK JPEG, which ImageIO
+                // cannot read. The document is not thread-safe, so this is done here and not on the workers.
+                pendingImages.acquire();
+                final BufferedImage srcImage;
+                try
+                {
+                    srcImage = job.mShapes.get(0).getImageData().toImage();
+                }
+                catch (Exception e)
+                {
+                    pendingImages.release();
+                    System.out.println("Error processing an image, ignoring. " + e.getMessage());
+                    continue;
+                }
+
+                results.put(job, executor.submit(new Callable<byte[]>()
+                {
+                    public byte[] call() throws Exception
+                    {
+                        try
+                        {
+                            return resampleCore(srcImage, job, threadWriter.get(), jpegQuality);
+                        }
+                        finally
+                        {
+                            pendingImages.release();
+                        }
+                    }
+                }));
+            }
+
+            List<ResampledShape> resampledShapes = new ArrayList<ResampledShape>();
+            for (Map.Entry<ResampleJob, Future<byte[]>> result : results.entrySet())
+            {
+                ResampleJob job = result.getKey();
+                byte[] dstBytes;
+                try
+                {
+                    dstBytes = result.getValue().get();
+                }
+                catch (ExecutionException e)
+                {
+                    // Log an error and continue if cannot process one of the images for whatever reason.
+                    System.out.println("Error processing an image, ignoring. " + e.getCause().getMessage());
+                    continue;
+                }
+
+                // If the image saved as JPEG is smaller than the original, store it in all shapes that share the image.
+                if (dstBytes.length >= job.mOriginalBytes.length)
+                    continue;
+
+                for (Shape shape : job.mShapes)
+                {
+                    shape.getImageData().setImageBytes(dstBytes);
+                    resampledShapes.add(new ResampledShape(shape, job.mOriginalBytes.length, dstBytes.length));
+                }
+            }
+
+            return resampledShapes;
         }
+        finally
+        {
+            executor.shutdownNow();
+            executor.awaitTermination(1, TimeUnit.MINUTES);
 
-        return count;
+            // The Java documentation recommends disposing image readers and writers asap.
+            for (ImageWriter writer : writers)
+                writer.dispose();
+        }
     }
 
     /**
-     * Resamples one VML or DrawingML image
+     * Checks whether the image of a shape needs resampling and, if so, returns a job for it. Returns null otherwise.
      */
-    private static boolean resampleCore(ImageData imageData, Point2D.Float shapeSizeInPoints, int ppi, int jpegQuality) throws Exception
+    private static ResampleJob createJob(Shape shape, int ppi) throws Exception
     {
         // The are actually several shape types that can have an image (picture, ole object, ole control), let's skip other shapes.
+        ImageData imageData = shape.getImageData();
         if (imageData == null)
-            return false;
+            return null;
 
         // An image can be stored in the shape or linked from somewhere else. Let's skip images that do not store bytes in the shape.
         byte[] originalBytes = imageData.getImageBytes();
         if (originalBytes == null)
-            return false;
+            return null;
 
         // Ignore metafiles, they are vector drawings and we don't want to resample them.
         int imageType = imageData.getImageType();
         if ((imageType == ImageType.WMF) || (imageType == ImageType.EMF))
-            return false;
-
-        try
-        {
-            double shapeWidthInches = ConvertUtil.pointToInch(shapeSizeInPoints.getX());
-            double shapeHeightInches = ConvertUtil.pointToInch(shapeSizeInPoints.getY());
+            return null;
 
-            // Calculate the current PPI of the image.
-            ImageSize imageSize = imageData.getImageSize();
-            double currentPpiX = imageSize.getWidthPixels() / shapeWidthInches;
-            double currentPpiY = imageSize.getHeightPixels() / shapeHeightInches;
+        // It is important to use this method to correctly get the picture shape size in points even if the picture is inside a group shape.
+        Point2D.Float shapeSizeInPoints = shape.getSizeInPoints();
+        double shapeWidthInches = ConvertUtil.pointToInch(shapeSizeInPoints.getX());
+        double shapeHeightInches = ConvertUtil.pointToInch(shapeSizeInPoints.getY());
 
-            System.out.print(MessageFormat.format("Image PpiX:{0}, PpiY:{1}. ", (int) currentPpiX, (int) currentPpiY));
+        // Calculate the current PPI of the image.
+        ImageSize imageSize = imageData.getImageSize();
+        double currentPpiX = imageSize.getWidthPixels() / shapeWidthInches;
+        double currentPpiY = imageSize.getHeightPixels() / shapeHeightInches;
 
-            // Let's resample only if the current PPI is higher than the requested PPI (e.g. we have extra data we can get rid of).
-            if ((currentPpiX <= ppi) || (currentPpiY <= ppi))
-            {
-                System.out.println("Skipping.");
-                return false;
-            }
+        // Let's resample only if the current PPI is higher than the requested PPI (e.g. we have extra data we can get rid of).
+        if ((currentPpiX <= ppi) || (currentPpiY <= ppi))
+            return null;
 
-            BufferedImage srcImage = imageData.toImage();
+        // Create a new image of such size that it will hold only the pixels required by the desired ppi.
+        int dstWidthPixels = (int)(shapeWidthInches * ppi);
+        int dstHeightPixels = (int)(shapeHeightInches * ppi);
 
-            // Create a new image of such size that it will hold only the pixels required by the desired ppi.
-            int dstWidthPixels = (int)(shapeWidthInches * ppi);
-            int dstHeightPixels = (int)(shapeHeightInches * ppi);
-            BufferedImage dstImage = new BufferedImage(dstWidthPixels, dstHeightPixels, getResampledImageType(srcImage.getType()));
+        return new ResampleJob(shape, originalBytes, dstWidthPixels, dstHeightPixels);
+    }
 
-            // Drawing the source image to the new image scales it to the new size.
-            Graphics2D g = (Graphics2D)dstImage.getGraphics();
-            try
-            {
-                // Setting any other interpolation or rendering value can increase the time taken extremely.
-                g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BICUBIC);
-                g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_SPEED);
-                g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
-
-                g.drawImage(
-                        srcImage,
-                        0, 0, dstWidthPixels, dstHeightPixels,
-                        0, 0, srcImage.getWidth(), srcImage.getHeight(),
-                        null);
-            }
-            finally
-            {
-                g.dispose();
-            }
+    /**
+     * Resamples one decoded image and returns it encoded as JPEG.
+     * Runs on a worker thread, so it does not use the document.
+     */
+    private static byte[] resampleCore(BufferedImage srcImage, ResampleJob job, ImageWriter writer, int jpegQuality) throws Exception
+    {
+        BufferedImage dstImage = new BufferedImage(job.mDstWidthPixels, job.mDstHeightPixels, getResampledImageType(srcImage.getType()));
 
+        // Drawing the source image to the new image scales it to the new size.
+        Graphics2D g = (Graphics2D)dstImage.getGraphics();
+        try
+        {
+            // Setting any other interpolation or rendering value can increase the time taken extremely.
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BICUBIC);
+            g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_SPEED);
+            g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+
+            g.drawImage(
+                    srcImage,
+                    0, 0, job.mDstWidthPixels, job.mDstHeightPixels,
+                    0, 0, srcImage.getWidth(), srcImage.getHeight(),
+                    null);
+        }
+        finally
+        {
+            g.dispose();
+        }
 
-            // Create JPEG encoder parameters with the quality setting.
-            Iterator writers = ImageIO.getImageWritersByFormatName("jpeg");
-            ImageWriter writer = (ImageWriter)writers.next();
-            ImageWriteParam param = writer.getDefaultWriteParam();
-            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
-            param.setCompressionQuality(jpegQuality / 100.0f);
+        // Create JPEG encoder parameters with the quality setting.
+        ImageWriteParam param = writer.getDefaultWriteParam();
+        param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+        param.setCompressionQuality(jpegQuality / 100.0f);
 
-            // Save the image as JPEG to a memory stream.
-            ByteArrayOutputStream dstStream = new ByteArrayOutputStream();
-            ImageOutputStream ios = ImageIO.createImageOutputStream(dstStream);
+        // Save the image as JPEG to a memory stream.
+        ByteArrayOutputStream dstStream = new ByteArrayOutputStream();
+        ImageOutputStream ios = ImageIO.createImageOutputStream(dstStream);
+        try
+        {
             writer.setOutput(ios);
-
-            IIOImage ioImage = new IIOImage(dstImage, null, null);
-            writer.write(null, ioImage, param);
+            writer.write(null, new IIOImage(dstImage, null, null), param);
 
             // This is required, otherwise not all data might be written to our stream.
             ios.flush();
-            // The Java documentation recommends disposing image readers and writers asap.
-            writer.dispose();
+        }
+        finally
+        {
+            // The writer is reused for the next image on this thread.
+            writer.reset();
+            ios.close();
+        }
 
-            // If the image saved as JPEG is smaller than the original, store it in the shape.
-            System.out.println(MessageFormat.format("Original size {0}, new size {1}.", originalBytes.length, dstStream.size()));
-            if (dstStream.size() < originalBytes.length)
-            {
-                imageData.setImageBytes(dstStream.toByteArray());
-                return true;
-            }
+        return dstStream.toByteArray();
+    }
+
+    /**
+     * The shapes that share one image and the output size they need.
+     */
+    private static class ResampleJob
+    {
+        ResampleJob(Shape shape, byte[] originalBytes, int dstWidthPixels, int dstHeightPixels) throws Exception
+        {
+            mShapes.add(shape);
+            mOriginalBytes = originalBytes;
+            mDstWidthPixels = dstWidthPixels;
+            mDstHeightPixels = dstHeightPixels;
+            mKey = hashContent(originalBytes) + "/" + dstWidthPixels + "x" + dstHeightPixels;
         }
-        catch (Exception e)
+
+        private static String hashContent(byte[] bytes) throws Exception
         {
-            // Catch an exception, log an error and continue if cannot process one of the images for whatever reason.
-            System.out.println("Error processing an image, ignoring. " + e.getMessage());
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(bytes);
+            return new BigInteger(1, digest).toString(16);
         }
 
-        return false;
+        final List<Shape> mShapes = new ArrayList<Shape>();
+        final byte[] mOriginalBytes;
+        final int mDstWidthPixels;
+        final int mDstHeightPixels;
+        final String mKey;
     }
 
     private static int getResampledImageType(int srcImageType)
@@ -232,4 +385,48 @@ class Resampler
         }
     }
 }
-//ExEnd:Resampler
\ No newline at end of file
+//ExEnd:Resampler
+//ExStart:ResampledShape
+/**
+ * Describes a shape whose image was replaced by the resampler.
+ */
+class ResampledShape
+{
+    ResampledShape(Shape shape, int originalSize, int newSize)
+    {
+        mShape = shape;
+        mOriginalSize = originalSize;
+        mNewSize = newSize;
+    }
+
+    public Shape getShape()
+    {
+        return mShape;
+    }
+
+    /**
+     * The size of the original image in bytes.
+     */
+    public int getOriginalSize()
+    {
+        return mOriginalSize;
+    }
+
+    /**
+     * The size of the resampled image in bytes.
+     */
+    public int getNewSize()
+    {
+        return mNewSize;
+    }
+
+    public int getBytesSaved()
+    {
+        return mOriginalSize - mNewSize;
+    }
+
+    private final Shape mShape;
+    private final int mOriginalSize;
+    private final int mNewSize;
+}
+//ExEnd:ResampledShape
\ No newline at end of file
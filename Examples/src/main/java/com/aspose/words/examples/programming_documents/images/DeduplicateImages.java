@@ -0,0 +1,348 @@
+package com.aspose.words.examples.programming_documents.images;
+
+import com.aspose.words.*;
+import com.aspose.words.examples.Utils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigInteger;
+import java.net.URI;
+import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.text.MessageFormat;
+import java.util.HashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import java.util.zip.ZipOutputStream;
+
+
+public class DeduplicateImages
+{
+    public static void main(String[] args) throws Exception
+    {
+        //ExStart:DeduplicateImages
+        // The path to the documents directory.
+        String dataDir = Utils.getDataDir(DeduplicateImages.class);
+        String srcFileName = Utils.getDataDir(ExtractImagesToFiles.class) + "Image.SampleImages.doc";
+
+        // Build a binder that contains the same images many times, as appending documents or mail merge would.
+        Document doc = new Document(srcFileName);
+        Document part = new Document(srcFileName);
+        for (int i = 0; i < 20; i++)
+            doc.appendDocument(part, ImportFormatMode.KEEP_SOURCE_FORMATTING);
+
+        String dstFileName = dataDir + "Binder Out.docx";
+        doc.save(dstFileName);
+        System.out.println(MessageFormat.format("Saved {0}. Size {1}.", dstFileName, new File(dstFileName).length()));
+
+        // Save the binder again, with every distinct image stored once.
+        String sharedFileName = dataDir + "Binder.SharedImages Out.docx";
+        DuplicateImageReport report;
+        OutputStream stream = new FileOutputStream(sharedFileName);
+        try
+        {
+            report = ImageDeduplicator.saveWithSharedImages(doc, stream);
+        }
+        finally
+        {
+            stream.close();
+        }
+
+        System.out.println(MessageFormat.format("Saved {0}. Size {1}.", sharedFileName, new File(sharedFileName).length()));
+        System.out.println(report);
+        //ExEnd:DeduplicateImages
+    }
+}
+//ExStart:ImageDeduplicator
+class ImageDeduplicator
+{
+    /**
+     * Saves the document as DOCX and makes all relationships to images with identical bytes point to one image part.
+     *
+     * The document model keeps a copy of the image for every shape, and the public API cannot make two shapes share
+     * one image. A DOCX package can: a relationship names the part it points to, and any number of relationships may
+     * name the same part. The document is saved to memory, the images of the package are identified by a SHA-256 hash
+     * of their bytes, and the package is copied to the stream without the parts that repeat an earlier image.
+     * The document itself is not changed.
+     *
+     * @param doc    The document to save.
+     * @param stream The stream the DOCX package is written to.
+     * @return The number of images and their bytes, counting every copy and counting each distinct image once.
+     */
+    public static DuplicateImageReport saveWithSharedImages(Document doc, OutputStream stream) throws Exception
+    {
+        ByteArrayOutputStream docx = new ByteArrayOutputStream();
+        doc.save(docx, SaveFormat.DOCX);
+        byte[] packageBytes = docx.toByteArray();
+
+        // The first pass finds the image parts that repeat an earlier one, the second pass copies the package without them.
+        HashMap<String, String> sharedParts = new HashMap<String, String>();
+        DuplicateImageReport report = findSharedParts(packageBytes, sharedParts);
+        writePackage(packageBytes, sharedParts, stream);
+
+        return report;
+    }
+
+    /**
+     * Maps the name of every image part that repeats an earlier image part to the name of that part.
+     */
+    private static DuplicateImageReport findSharedParts(byte[] packageBytes, HashMap<String, String> sharedParts) throws Exception
+    {
+        MessageDigest digest = MessageDigest.getInstance("SHA-256");
+        HashMap<String, String> firstParts = new HashMap<String, String>();
+        int imageCount = 0;
+        long totalBytes = 0;
+        long uniqueBytes = 0;
+        byte[] buffer = new byte[BUFFER_SIZE];
+
+        ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(packageBytes));
+        try
+        {
+            for (ZipEntry entry = zip.getNextEntry(); entry != null; entry = zip.getNextEntry())
+            {
+                String partName = entry.getName();
+                if (!isImagePart(partName))
+                    continue;
+
+                long size = 0;
+                for (int read = zip.read(buffer); read != -1; read = zip.read(buffer))
+                {
+                    digest.update(buffer, 0, read);
+                    size += read;
+                }
+
+                imageCount++;
+                totalBytes += size;
+
+                // Only parts in the same folder and with the same extension are shared, so that a relationship can
+                // be redirected by its file name and the part keeps its content type.
+                String key = getFolder(partName) + getExtension(partName) + ":" + new BigInteger(1, digest.digest()).toString(16);
+                String firstPart = firstParts.get(key);
+                if (firstPart == null)
+                {
+                    firstParts.put(key, partName);
+                    uniqueBytes += size;
+                }
+                else
+                {
+                    sharedParts.put(partName, firstPart);
+                }
+            }
+        }
+        finally
+        {
+            zip.close();
+        }
+
+        return new DuplicateImageReport(imageCount, firstParts.size(), totalBytes, uniqueBytes);
+    }
+
+    private static void writePackage(byte[] packageBytes, HashMap<String, String> sharedParts, OutputStream stream) throws Exception
+    {
+        ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(packageBytes));
+        ZipOutputStream out = new ZipOutputStream(stream);
+        try
+        {
+            byte[] buffer = new byte[BUFFER_SIZE];
+            for (ZipEntry entry = zip.getNextEntry(); entry != null; entry = zip.getNextEntry())
+            {
+                String partName = entry.getName();
+                if (sharedParts.containsKey(partName))
+                    continue;
+
+                out.putNextEntry(new ZipEntry(partName));
+                if (partName.endsWith(".rels"))
+                {
+                    out.write(redirectRelationships(partName, readText(zip), sharedParts).getBytes(UTF_8));
+                }
+                else if (partName.equals(CONTENT_TYPES_PART))
+                {
+                    out.write(removeOverrides(readText(zip), sharedParts).getBytes(UTF_8));
+                }
+                else
+                {
+                    for (int read = zip.read(buffer); read != -1; read = zip.read(buffer))
+                        out.write(buffer, 0, read);
+                }
+                out.closeEntry();
+            }
+
+            // Finishes the package without closing the stream of the caller.
+            out.finish();
+        }
+        finally
+        {
+            zip.close();
+        }
+    }
+
+    /**
+     * Points the relationships to removed image parts at the image parts that are kept.
+     */
+    private static String redirectRelationships(String relsPartName, String xml, HashMap<String, String> sharedParts)
+    {
+        if (sharedParts.isEmpty())
+            return xml;
+
+        // The targets are relative to the folder of the part the relationships belong to, e.g. "word/" for
+        // "word/_rels/document.xml.rels".
+        String sourceFolder = getFolder(getFolder(relsPartName).replaceFirst("_rels/$", ""));
+
+        StringBuffer result = new StringBuffer();
+        Matcher matcher = TARGET_PATTERN.matcher(xml);
+        while (matcher.find())
+        {
+            String target = matcher.group(2);
+            String sharedPart = sharedParts.get(resolve(sourceFolder, target));
+            if (sharedPart != null)
+                target = target.substring(0, target.lastIndexOf('/') + 1) + sharedPart.substring(sharedPart.lastIndexOf('/') + 1);
+
+            matcher.appendReplacement(result, Matcher.quoteReplacement(matcher.group(1) + target + matcher.group(3)));
+        }
+        matcher.appendTail(result);
+
+        return result.toString();
+    }
+
+    /**
+     * Removes the content types of removed parts. Images usually get their content type from their extension instead.
+     */
+    private static String removeOverrides(String xml, HashMap<String, String> sharedParts)
+    {
+        for (String partName : sharedParts.keySet())
+            xml = xml.replaceAll("<Override PartName=\"/" + Pattern.quote(partName) + "\"[^>]*/>", "");
+
+        return xml;
+    }
+
+    private static String resolve(String folder, String target)
+    {
+        // A target that starts with a slash is relative to the root of the package. External targets, e.g. of
+        // hyperlinks, need not be valid URIs and never name a part.
+        try
+        {
+            String path = URI.create("/" + folder).resolve(target).getPath();
+            return (path != null && path.startsWith("/")) ? path.substring(1) : path;
+        }
+        catch (IllegalArgumentException e)
+        {
+            return null;
+        }
+    }
+
+    private static boolean isImagePart(String partName)
+    {
+        return partName.contains("/media/") && !partName.endsWith("/");
+    }
+
+    private static String getFolder(String partName)
+    {
+        return partName.substring(0, partName.lastIndexOf('/') + 1);
+    }
+
+    private static String getExtension(String partName)
+    {
+        int dot = partName.lastIndexOf('.');
+        return (dot > partName.lastIndexOf('/')) ? partName.substring(dot).toLowerCase() : "";
+    }
+
+    private static String readText(InputStream stream) throws IOException
+    {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        byte[] buffer = new byte[BUFFER_SIZE];
+        for (int read = stream.read(buffer); read != -1; read = stream.read(buffer))
+            bytes.write(buffer, 0, read);
+
+        return new String(bytes.toByteArray(), UTF_8);
+    }
+
+    private static final int BUFFER_SIZE = 8192;
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    private static final String CONTENT_TYPES_PART = "[Content_Types].xml";
+    // The Target attribute of a relationship.
+    private static final Pattern TARGET_PATTERN = Pattern.compile("(\\sTarget=\")([^\"]*)(\")");
+}
+//ExEnd:ImageDeduplicator
+//ExStart:DuplicateImageReport
+/**
+ * The images of a saved document and how many of them are copies of each other.
+ */
+class DuplicateImageReport
+{
+    DuplicateImageReport(int imageCount, int uniqueImageCount, long totalBytes, long uniqueBytes)
+    {
+        mImageCount = imageCount;
+        mUniqueImageCount = uniqueImageCount;
+        mTotalBytes = totalBytes;
+        mUniqueBytes = uniqueBytes;
+    }
+
+    /**
+     * The number of images the document was saved with, counting every copy.
+     */
+    public int getImageCount()
+    {
+        return mImageCount;
+    }
+
+    /**
+     * The number of distinct images among them.
+     */
+    public int getUniqueImageCount()
+    {
+        return mUniqueImageCount;
+    }
+
+    /**
+     * The size of all images in bytes, counting every copy.
+     */
+    public long getTotalBytes()
+    {
+        return mTotalBytes;
+    }
+
+    /**
+     * The size of the distinct images in bytes, counting each of them once.
+     */
+    public long getUniqueBytes()
+    {
+        return mUniqueBytes;
+    }
+
+    /**
+     * The size of the copies of images that are not stored again.
+     */
+    public long getDuplicateBytes()
+    {
+        return mTotalBytes - mUniqueBytes;
+    }
+
+    /**
+     * How many times the image data is repeated on average, e.g. 20 for a logo repeated 20 times. The image data
+     * stored in the package is smaller by this ratio.
+     */
+    public double getDuplicationRatio()
+    {
+        return (mUniqueBytes == 0) ? 1 : (double) mTotalBytes / mUniqueBytes;
+    }
+
+    @Override
+    public String toString()
+    {
+        return MessageFormat.format("{0} images, {1} unique. Image bytes {2}, of which {3} are copies that are not stored, deduplication ratio {4,number,#.##}.",
+                mImageCount, mUniqueImageCount, mTotalBytes, getDuplicateBytes(), getDuplicationRatio());
+    }
+
+    private final int mImageCount;
+    private final int mUniqueImageCount;
+    private final long mTotalBytes;
+    private final long mUniqueBytes;
+}
+//ExEnd:DuplicateImageReport
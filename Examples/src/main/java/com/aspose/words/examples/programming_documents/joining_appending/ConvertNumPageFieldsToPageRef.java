@@ -5,6 +5,7 @@ import com.aspose.words.*;
 import com.aspose.words.examples.Utils;
 
 import java.text.MessageFormat;
+import java.util.ArrayList;
 
 
 public class ConvertNumPageFieldsToPageRef
@@ -30,11 +31,10 @@ public class ConvertNumPageFieldsToPageRef
 
         // After joining the documents the NUMPAGE fields will now display the total number of pages which
         // is undesired behaviour. Call this method to fix them by replacing them with PAGEREF fields.
+        // The method also builds the page layout and updates the new fields, so they display the page numbers of
+        // their sub documents.
         convertNumPageFieldsToPageRef(dstDoc);
 
-        // This needs to be called in order to update the new fields with page numbers.
-        dstDoc.updatePageLayout();
-
         dstDoc.save(gDataDir + "TestFile.ConvertNumPageFields Out.doc");
 
 
@@ -58,105 +58,96 @@ public class ConvertNumPageFieldsToPageRef
         // Field name of the PAGEREF field.
         final String PAGE_REF_FIELD_NAME = "PAGEREF";
 
-        // Create a new DocumentBuilder which is used to insert the bookmarks and replacement fields.
+        // Find the ends of the sub documents and the NUMPAGES fields in a single pass over the document.
+        NumPagesFieldCollector collector = new NumPagesFieldCollector();
+        doc.accept(collector);
+
+        // Insert a bookmark at the end of every sub document. The last section ends the last sub document.
+        ArrayList<Section> subDocumentEnds = collector.mSubDocumentEnds;
+        subDocumentEnds.add(doc.getLastSection());
+        for (int i = 0; i < subDocumentEnds.size(); i++)
+        {
+            Paragraph lastParagraph = subDocumentEnds.get(i).getBody().getLastParagraph();
+            lastParagraph.appendChild(new BookmarkStart(doc, BOOKMARK_PREFIX + i));
+            lastParagraph.appendChild(new BookmarkEnd(doc, BOOKMARK_PREFIX + i));
+        }
+
+        // Create a new DocumentBuilder which is used to insert the replacement fields.
         DocumentBuilder builder = new DocumentBuilder(doc);
-        // Defines the number of page restarts that have been encountered and therefore the number of "sub" documents
-        // found within this document.
-        int subDocumentCount = 0;
+        ArrayList<Field> newFields = new ArrayList<Field>();
 
-        // Iterate through all sections in the document.
-        for (Section section : doc.getSections())
+        // Replace each NUMPAGES field with a PAGEREF field referring to the bookmark at the end of its sub document.
+        for (int i = 0; i < collector.mFieldStarts.size(); i++)
         {
-            // This section has it's page numbering restarted so we will treat this as the start of a sub document.
-            // Any PAGENUM fields in this inner document must be converted to special PAGEREF fields to correct numbering.
-            if (section.getPageSetup().getRestartPageNumbering())
-            {
-                // Don't do anything if this is the first section in the document. This part of the code will insert the bookmark marking
-                // the end of the previous sub document so therefore it is not applicable for first section in the document.
-                if (!section.equals(doc.getFirstSection()))
-                {
-                    // Get the previous section and the last node within the body of that section.
-                    Section prevSection = (Section)section.getPreviousSibling();
-                    Node lastNode = prevSection.getBody().getLastChild();
-
-                    // Use the DocumentBuilder to move to this node and insert the bookmark there.
-                    // This bookmark represents the end of the sub document.
-                    builder.moveTo(lastNode);
-                    builder.startBookmark(BOOKMARK_PREFIX + subDocumentCount);
-                    builder.endBookmark(BOOKMARK_PREFIX + subDocumentCount);
-
-                    // Increase the subdocument count to insert the correct bookmarks.
-                    subDocumentCount++;
-                }
-            }
+            FieldStart fieldStart = collector.mFieldStarts.get(i);
+            int subDocumentIndex = collector.mFieldSubDocuments.get(i);
 
-            // The last section simply needs the ending bookmark to signal that it is the end of the current sub document.
-            if (section.equals(doc.getLastSection()))
-            {
-                // Insert the bookmark at the end of the body of the last section.
-                // Don't increase the count this time as we are just marking the end of the document.
-                Node lastNode = doc.getLastSection().getBody().getLastChild();
-                builder.moveTo(lastNode);
-                builder.startBookmark(BOOKMARK_PREFIX + subDocumentCount);
-                builder.endBookmark(BOOKMARK_PREFIX + subDocumentCount);
-            }
+            // Get the field code.
+            String fieldCode = fieldStart.getField().getFieldCode();
+            // Since the NUMPAGES field does not take any additional parameters we can assume the remaining part of the field
+            // code after the fieldname are the switches. We will use these to help recreate the NUMPAGES field as a PAGEREF field.
+            String fieldSwitches = fieldCode.replace(NUM_PAGES_FIELD_NAME, "").trim();
 
-            // Iterate through each NUMPAGES field in the section and replace the field with a PAGEREF field referring to the bookmark of the current subdocument
-            // This bookmark is positioned at the end of the sub document but does not exist yet. It is inserted when a section with restart page numbering or the last
-            // section is encountered.
-            for (Node node : section.getChildNodes(NodeType.FIELD_START, true).toArray())
-            {
-                FieldStart fieldStart = (FieldStart)node;
-
-                if (fieldStart.getFieldType() == FieldType.FIELD_NUM_PAGES)
-                {
-                    // Get the field code.
-                    String fieldCode = getFieldCode(fieldStart);
-                    // Since the NUMPAGES field does not take any additional parameters we can assume the remaining part of the field
-                    // code after the fieldname are the switches. We will use these to help recreate the NUMPAGES field as a PAGEREF field.
-                    String fieldSwitches = fieldCode.replace(NUM_PAGES_FIELD_NAME, "").trim();
-
-                    // Inserting the new field directly at the FieldStart node of the original field will cause the new field to
-                    // not pick up the formatting of the original field. To counter this insert the field just before the original field
-                    Node previousNode = fieldStart.getPreviousSibling();
-
-                    // If a previous run cannot be found then we are forced to use the FieldStart node.
-                    if (previousNode == null)
-                        previousNode = fieldStart;
-
-                    // Insert a PAGEREF field at the same position as the field.
-                    builder.moveTo(previousNode);
-                    // This will insert a new field with a code like " PAGEREF _SubDocumentEnd0 *\MERGEFORMAT ".
-                    Field newField = builder.insertField(MessageFormat.format(" {0} {1}{2} {3} ", PAGE_REF_FIELD_NAME, BOOKMARK_PREFIX, subDocumentCount, fieldSwitches));
-
-                    // The field will be inserted before the referenced node. Move the node before the field instead.
-                    previousNode.getParentNode().insertBefore(previousNode, newField.getStart());
-
-                    // Remove the original NUMPAGES field from the document.
-                    removeField(fieldStart);
-                }
-            }
+            // Inserting the new field directly at the FieldStart node of the original field will cause the new field to
+            // not pick up the formatting of the original field. To counter this insert the field just before the original field
+            Node previousNode = fieldStart.getPreviousSibling();
+
+            // If a previous run cannot be found then we are forced to use the FieldStart node.
+            if (previousNode == null)
+                previousNode = fieldStart;
+
+            // Insert a PAGEREF field at the same position as the field.
+            builder.moveTo(previousNode);
+            // This will insert a new field with a code like " PAGEREF _SubDocumentEnd0 *\MERGEFORMAT ". The field keeps the
+            // result of the old field until it is updated below, updating it here would build the layout for every field.
+            Field newField = builder.insertField(MessageFormat.format(" {0} {1}{2} {3} ", PAGE_REF_FIELD_NAME, BOOKMARK_PREFIX, subDocumentIndex, fieldSwitches),
+                    fieldStart.getField().getResult());
+
+            // The field will be inserted before the referenced node. Move the node before the field instead.
+            previousNode.getParentNode().insertBefore(previousNode, newField.getStart());
+
+            // Remove the original NUMPAGES field from the document.
+            removeField(fieldStart);
+
+            newFields.add(newField);
         }
-    }
 
+        // PAGEREF fields take their result from the page layout, which is built once for all of them. Only the new
+        // fields are updated, the other fields of the document keep their results.
+        doc.updatePageLayout();
+        for (Field newField : newFields)
+            newField.update();
+    }
 
     /**
-     * Retrieves the field code from a field.
-     *
-     * @param fieldStart The field start of the field which to gather the field code from.
+     * Collects the NUMPAGES fields of the document together with the index of the sub document each field is in.
+     * A section that restarts page numbering starts a new sub document, unless it is the first section.
      */
-    private static String getFieldCode(FieldStart fieldStart) throws Exception
+    private static class NumPagesFieldCollector extends DocumentVisitor
     {
-        StringBuilder builder = new StringBuilder();
+        public int visitSectionStart(Section section)
+        {
+            if (section.getPageSetup().getRestartPageNumbering() && section.getPreviousSibling() != null)
+                mSubDocumentEnds.add((Section)section.getPreviousSibling());
 
-        for (Node node = fieldStart; node != null && node.getNodeType() != NodeType.FIELD_SEPARATOR &&
-                node.getNodeType() != NodeType.FIELD_END; node = node.nextPreOrder(node.getDocument()))
+            return VisitorAction.CONTINUE;
+        }
+
+        public int visitFieldStart(FieldStart fieldStart)
         {
-            // Use text only of Run nodes to avoid duplication.
-            if (node.getNodeType() == NodeType.RUN)
-                builder.append(node.getText());
+            if (fieldStart.getFieldType() == FieldType.FIELD_NUM_PAGES)
+            {
+                mFieldStarts.add(fieldStart);
+                mFieldSubDocuments.add(mSubDocumentEnds.size());
+            }
+
+            return VisitorAction.CONTINUE;
         }
-        return builder.toString();
+
+        // The last section of every sub document but the last one.
+        private final ArrayList<Section> mSubDocumentEnds = new ArrayList<Section>();
+        private final ArrayList<FieldStart> mFieldStarts = new ArrayList<FieldStart>();
+        private final ArrayList<Integer> mFieldSubDocuments = new ArrayList<Integer>();
     }
 
     /**
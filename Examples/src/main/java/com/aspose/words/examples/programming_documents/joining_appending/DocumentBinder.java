@@ -0,0 +1,119 @@
+package com.aspose.words.examples.programming_documents.joining_appending;
+
+import com.aspose.words.Document;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Joins many documents into one.
+ *
+ * Appending documents one by one to the same destination gets slower as the destination grows, because every
+ * appended document has its styles and lists resolved against everything appended before it. The binder instead
+ * appends small batches of documents into separate destinations, and then joins the batches in pairs, level by
+ * level, until one document is left. Every join appends a part to a destination of about the same size, so the
+ * work grows with n log n of the number of documents instead of its square. Batches and pairs are joined on several
+ * threads, each with its own documents. Documents are loaded from disk by the threads that append them.
+ */
+public class DocumentBinder
+{
+    /**
+     * @param importFormatMode How the styles of the appended documents are imported, a value of ImportFormatMode.
+     * @param parallelism      The number of threads.
+     */
+    public DocumentBinder(int importFormatMode, int parallelism)
+    {
+        if (parallelism < 1)
+            throw new IllegalArgumentException("The number of threads must be positive.");
+
+        mImportFormatMode = importFormatMode;
+        mParallelism = parallelism;
+    }
+
+    /**
+     * Loads the documents and joins them in the order of the list. The first document is the destination of all others.
+     */
+    public Document bind(List<String> fileNames) throws Exception
+    {
+        if (fileNames.isEmpty())
+            throw new IllegalArgumentException("There are no documents to join.");
+
+        ExecutorService executor = Executors.newFixedThreadPool(mParallelism);
+        try
+        {
+            // Load and join the documents of every batch.
+            ArrayList<Future<Document>> parts = new ArrayList<Future<Document>>();
+            for (int i = 0; i < fileNames.size(); i += BATCH_SIZE)
+            {
+                final List<String> batch = fileNames.subList(i, Math.min(i + BATCH_SIZE, fileNames.size()));
+                parts.add(executor.submit(new Callable<Document>()
+                {
+                    public Document call() throws Exception
+                    {
+                        Document dstDoc = new Document(batch.get(0));
+                        for (int j = 1; j < batch.size(); j++)
+                            dstDoc.appendDocument(new Document(batch.get(j)), mImportFormatMode);
+
+                        return dstDoc;
+                    }
+                }));
+            }
+
+            return joinParts(executor, parts);
+        }
+        catch (ExecutionException e)
+        {
+            throw (e.getCause() instanceof Exception) ? (Exception) e.getCause() : e;
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Joins the parts in pairs until one is left. A pair is joined when both of its parts are ready, so a part is
+     * never used by two threads.
+     */
+    private Document joinParts(ExecutorService executor, List<Future<Document>> parts) throws Exception
+    {
+        while (parts.size() > 1)
+        {
+            ArrayList<Future<Document>> joinedParts = new ArrayList<Future<Document>>();
+            for (int i = 0; i < parts.size(); i += 2)
+            {
+                if (i + 1 == parts.size())
+                {
+                    joinedParts.add(parts.get(i));
+                    break;
+                }
+
+                final Document dstDoc = parts.get(i).get();
+                final Document srcDoc = parts.get(i + 1).get();
+                joinedParts.add(executor.submit(new Callable<Document>()
+                {
+                    public Document call() throws Exception
+                    {
+                        dstDoc.appendDocument(srcDoc, mImportFormatMode);
+                        return dstDoc;
+                    }
+                }));
+            }
+
+            parts = joinedParts;
+        }
+
+        return parts.get(0).get();
+    }
+
+    // The number of documents that are appended one by one before the batches are joined in pairs.
+    private static final int BATCH_SIZE = 32;
+
+    private final int mImportFormatMode;
+    private final int mParallelism;
+}
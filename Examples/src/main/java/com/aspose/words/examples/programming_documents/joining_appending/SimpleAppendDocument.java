@@ -30,6 +30,27 @@ public class SimpleAppendDocument
 		//ExEnd:SimpleAppendDocument
 
         System.out.println("Documents appended successfully.");
+
+        appendManyDocuments();
+    }
+
+    public static void appendManyDocuments() throws Exception
+    {
+        //ExStart:AppendManyDocuments
+        // Join the same source document many times, as when building a binder of small documents.
+        ArrayList<String> fileNames = new ArrayList<String>();
+        fileNames.add(gDataDir + "TestFile.Destination.doc");
+        for (int i = 0; i < 500; i++)
+            fileNames.add(gDataDir + "TestFile.Source.doc");
+
+        // Documents are appended in batches on all cores, then the batches are joined in pairs.
+        DocumentBinder binder = new DocumentBinder(ImportFormatMode.KEEP_SOURCE_FORMATTING, Runtime.getRuntime().availableProcessors());
+        Document binderDoc = binder.bind(fileNames);
+
+        binderDoc.save(gDataDir + "TestFile.AppendManyDocuments Out.docx");
+        //ExEnd:AppendManyDocuments
+
+        System.out.println(MessageFormat.format("{0} documents appended successfully.", fileNames.size()));
     }
 
 }
\ No newline at end of file
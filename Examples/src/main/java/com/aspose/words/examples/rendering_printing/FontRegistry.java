@@ -0,0 +1,167 @@
+package com.aspose.words.examples.rendering_printing;
+
+import java.io.File;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import com.aspose.words.Document;
+import com.aspose.words.FolderFontSource;
+import com.aspose.words.FontSettings;
+import com.aspose.words.FontSourceBase;
+
+/**
+ * The font folders of the process, shared by all documents rendered in it.
+ *
+ * All documents share one FontSettings object, so Aspose.Words reads every font only once per process instead of
+ * once per document. The settings must not be changed by the caller. Every folder of a tree is checked on its own:
+ * the folders are listed when they are added, and later only the folders whose modification time has changed are
+ * listed again. The folders are checked for changes at most every few seconds. When a folder changes, the registry
+ * creates new settings and documents rendered after that use the new settings. A font file that is overwritten in
+ * place does not change the folder and is not noticed.
+ *
+ * The fonts are read again when the process starts. Aspose.Words 19.4 reads the fonts of its font sources itself
+ * and has no way to save what it read, so there is nothing to keep between runs.
+ */
+public class FontRegistry {
+	/**
+	 * Returns the registry of the process.
+	 */
+	public static synchronized FontRegistry getInstance() {
+		if (mInstance == null)
+			mInstance = new FontRegistry();
+
+		return mInstance;
+	}
+
+	/**
+	 * Adds a folder to the fonts of the registry. Adding a folder that is already in the registry does nothing.
+	 */
+	public synchronized void addFolder(String folderPath, boolean scanSubfolders) {
+		Boolean previous = mRootFolders.put(new File(folderPath).getAbsoluteFile(), scanSubfolders);
+		if (previous == null || previous != scanSubfolders)
+			mFontSettings = null;
+	}
+
+	/**
+	 * Returns the font settings shared by all documents. They contain the default font sources and the folders of
+	 * the registry. The settings must not be changed.
+	 */
+	public synchronized FontSettings getFontSettings() throws Exception {
+		long now = System.currentTimeMillis();
+		if (mFontSettings != null && now - mLastCheckTime < CHECK_INTERVAL_MILLIS)
+			return mFontSettings;
+
+		mLastCheckTime = now;
+		if (updateFolders() || mFontSettings == null)
+			mFontSettings = createFontSettings();
+
+		return mFontSettings;
+	}
+
+	/**
+	 * Makes the document use the shared font settings.
+	 */
+	public void applyTo(Document doc) throws Exception {
+		doc.setFontSettings(getFontSettings());
+	}
+
+	/**
+	 * Lists the registered folders. Folders whose modification time is the same as when they were last listed
+	 * are not listed again. Returns true if a folder has changed.
+	 */
+	private boolean updateFolders() {
+		LinkedHashMap<File, FolderEntry> folders = new LinkedHashMap<File, FolderEntry>();
+		boolean isChanged = false;
+
+		for (Map.Entry<File, Boolean> rootFolder : mRootFolders.entrySet()) {
+			ArrayDeque<File> pendingFolders = new ArrayDeque<File>();
+			pendingFolders.add(rootFolder.getKey());
+
+			while (!pendingFolders.isEmpty()) {
+				File folder = pendingFolders.removeFirst();
+				if (folders.containsKey(folder) || !folder.isDirectory())
+					continue;
+
+				// A folder is modified when files or subfolders are added to it or removed from it.
+				long lastModified = folder.lastModified();
+				FolderEntry entry = mFolders.get(folder);
+				if (entry == null || entry.mLastModified != lastModified) {
+					entry = listFolder(folder, lastModified);
+					isChanged = true;
+				}
+
+				folders.put(folder, entry);
+				if (rootFolder.getValue())
+					pendingFolders.addAll(entry.mSubfolders);
+			}
+		}
+
+		// Folders that were deleted or are no longer registered.
+		if (!folders.keySet().equals(mFolders.keySet()))
+			isChanged = true;
+
+		mFolders = folders;
+		return isChanged;
+	}
+
+	private static FolderEntry listFolder(File folder, long lastModified) {
+		FolderEntry entry = new FolderEntry(lastModified);
+
+		File[] files = folder.listFiles();
+		if (files == null)
+			return entry;
+
+		for (File file : files) {
+			if (file.isDirectory())
+				entry.mSubfolders.add(file.getAbsoluteFile());
+			else if (isFontFile(file.getName()))
+				entry.mHasFontFiles = true;
+		}
+
+		return entry;
+	}
+
+	private static boolean isFontFile(String fileName) {
+		String name = fileName.toLowerCase();
+		return name.endsWith(".ttf") || name.endsWith(".ttc") || name.endsWith(".otf") || name.endsWith(".otc");
+	}
+
+	private FontSettings createFontSettings() {
+		ArrayList<FontSourceBase> fontSources = new ArrayList<FontSourceBase>(Arrays.asList(FontSettings.getDefaultInstance().getFontsSources()));
+
+		// Each folder with fonts is added without its subfolders, they are added on their own.
+		for (Map.Entry<File, FolderEntry> folder : mFolders.entrySet()) {
+			if (folder.getValue().mHasFontFiles)
+				fontSources.add(new FolderFontSource(folder.getKey().getPath(), false));
+		}
+
+		FontSettings fontSettings = new FontSettings();
+		fontSettings.setFontsSources(fontSources.toArray(new FontSourceBase[fontSources.size()]));
+		return fontSettings;
+	}
+
+	/**
+	 * The subfolders of a folder and whether it contains fonts.
+	 */
+	private static class FolderEntry {
+		FolderEntry(long lastModified) {
+			mLastModified = lastModified;
+		}
+
+		private final long mLastModified;
+		private final ArrayList<File> mSubfolders = new ArrayList<File>();
+		private boolean mHasFontFiles;
+	}
+
+	private static final long CHECK_INTERVAL_MILLIS = 10000;
+
+	private static FontRegistry mInstance;
+
+	private final LinkedHashMap<File, Boolean> mRootFolders = new LinkedHashMap<File, Boolean>();
+	private LinkedHashMap<File, FolderEntry> mFolders = new LinkedHashMap<File, FolderEntry>();
+	private FontSettings mFontSettings;
+	private long mLastCheckTime;
+}
@@ -0,0 +1,906 @@
+package com.aspose.words.examples.rendering_printing;
+
+import com.aspose.words.*;
+import java.awt.geom.Rectangle2D;
+import java.util.Collection;
+
+/** 
+Provides the base class for rendered elements of a document.
+*/
+public class LayoutEntity
+{
+	protected LayoutEntity()
+	{
+	}
+
+	/** 
+	 Gets the 1-based index of a page which contains the rendered entity.
+	*/
+	public final int getPageIndex()
+	{
+		return mPageIndex;
+	}
+
+	/** 
+	 Returns bounding rectangle of the entity relative to the page top left corner (in points).
+	*/
+	public final Rectangle2D getRectangle()
+	{
+		return mRectangle;
+	}
+
+	/** 
+	 Gets the type of this layout entity.
+	*/
+	public final int getType() //LayoutEntityType
+	{
+		return mType;
+	}
+
+	/** 
+	 Exports the contents of the entity into a string in plain text format.
+	*/
+	public String getText()
+	{
+		EnsureChildEntities();
+
+		StringBuilder builder = new StringBuilder();
+		for (LayoutEntity entity : mChildEntities)
+		{
+			builder.append(entity.getText());
+		}
+
+		return builder.toString();
+	}
+
+	/** 
+	 Gets the immediate parent of this entity.
+	*/
+	public final LayoutEntity getParent()
+	{
+		return mParent;
+	}
+
+	/** 
+	 Returns the node that corresponds to this layout entity.  
+	 
+	 This property may return null for spans that originate from Run nodes or nodes that are inside the header or footer.
+	*/
+	public Node getParentNode()
+	{
+		return mParentNode;
+	}
+	
+	public void setParentNode(Node value)
+	{
+		mParentNode = value;
+	}
+
+	/** 
+	 Reserved for internal use.
+	*/
+	private Object privateLayoutObject;
+	
+	public final Object getLayoutObject()
+	{
+		return privateLayoutObject;
+	}
+	
+	public final void setLayoutObject(Object value)
+	{
+		privateLayoutObject = value;
+	}
+
+	/** 
+	 Reserved for internal use.
+	 * @throws Exception 
+	*/
+	public final LayoutEntity AddChildEntity(LayoutEnumerator it) throws Exception
+	{
+		LayoutEntity child = CreateLayoutEntityFromType(it);
+		mChildEntities.add(child);
+
+		return child;
+	}
+
+	
+	private LayoutEntity CreateLayoutEntityFromType(LayoutEnumerator it) throws Exception
+	{
+		LayoutEntity childEntity;
+		switch (it.getType())
+		{
+			case LayoutEntityType.CELL:
+				childEntity = new RenderedCell();
+				break;
+			case LayoutEntityType.COLUMN:
+				childEntity = new RenderedColumn();
+				break;
+			case LayoutEntityType.COMMENT:
+				childEntity = new RenderedComment();
+				break;
+			case LayoutEntityType.ENDNOTE:
+				childEntity = new RenderedEndnote();
+				break;
+			case LayoutEntityType.FOOTNOTE:
+				childEntity = new RenderedFootnote();
+				break;
+			case LayoutEntityType.HEADER_FOOTER:
+				childEntity = new RenderedHeaderFooter();
+				break;
+			case LayoutEntityType.LINE:
+				childEntity = new RenderedLine();
+				break;
+			case LayoutEntityType.NOTE_SEPARATOR:
+				childEntity = new RenderedNoteSeparator();
+				break;
+			case LayoutEntityType.PAGE:
+				childEntity = new RenderedPage();
+				break;
+			case LayoutEntityType.ROW:
+				childEntity = new RenderedRow();
+				break;
+			case LayoutEntityType.SPAN:
+				childEntity = new RenderedSpan(it.getText());
+				break;
+			case LayoutEntityType.TEXT_BOX:
+				childEntity = new RenderedTextBox();
+				break;
+			default:
+				throw new UnsupportedOperationException("Unknown layout type");
+		}
+
+		childEntity.mKind = it.getKind();
+		childEntity.mPageIndex = it.getPageIndex();
+		childEntity.mRectangle = it.getRectangle();
+		childEntity.mType = it.getType();
+		childEntity.setLayoutObject(it.getCurrent());
+		childEntity.mParent = this;
+
+		return childEntity;
+	}
+	
+	/** 
+	 Returns a collection of child entities which match the specified type.
+	 
+
+	*/
+	 
+	public static <E> Collection<E> makeCollection(Iterable<E> iter) {
+	    Collection<E> list = new java.util.ArrayList<E>();
+	    for (E item : iter) {
+	        list.add(item);
+	    }
+	    return list;
+	}
+	
+	public final LayoutCollection<LayoutEntity> GetChildEntities(int type, boolean isDeep)
+	{
+			java.util.ArrayList<LayoutEntity> childList = new java.util.ArrayList<LayoutEntity>();
+
+			if (isDeep)
+			{
+				// Descendants are collected in document order straight into one list.
+				LayoutEntityCursor cursor = CreateCursor(type);
+				while (cursor.moveNext())
+				{
+					childList.add(cursor.getCurrent());
+				}
+			}
+			else
+			{
+				EnsureChildEntities();
+
+				for (LayoutEntity entity : mChildEntities)
+				{
+					if (LayoutEntityCursor.isMatch(entity, type))
+					{
+						childList.add(entity);
+					}
+				}
+			}
+
+			return new LayoutCollection<LayoutEntity>(childList);
+	}
+
+	/** 
+	 Returns a cursor over the descendants of this entity, in document order, whose type matches the specified
+	 LayoutEntityType mask. The cursor walks the tree with its own stack and does not build intermediate collections.
+	*/
+	public final LayoutEntityCursor CreateCursor(int type)
+	{
+		return new LayoutEntityCursor(this, type);
+	}
+
+	/** 
+	 Calls the visitor for every descendant of this entity, in document order, whose type matches the specified
+	 LayoutEntityType mask.
+	 
+	 The visitor returns a VisitorAction: SKIP_THIS_NODE skips the descendants of the entity and STOP ends the traversal.
+	 @return False if the traversal was stopped by the visitor.
+	*/
+	public final boolean Accept(int type, LayoutEntityVisitor visitor) throws Exception
+	{
+		LayoutEntityCursor cursor = CreateCursor(type);
+		while (cursor.moveNext())
+		{
+			int action = visitor.visit(cursor.getCurrent());
+			if (action == VisitorAction.STOP)
+			{
+				return false;
+			}
+
+			if (action == VisitorAction.SKIP_THIS_NODE)
+			{
+				cursor.skipChildren();
+			}
+		}
+
+		return true;
+	}
+	 
+	
+	@SuppressWarnings("unchecked")
+	public <T extends LayoutEntity> LayoutCollection<T> GetChildNodes(T t) //<T> T GetChildNodes(String name) //<T extends LayoutEntity> LayoutCollection<T> GetChildNodes(T t)
+	{
+		EnsureChildEntities();
+
+		T obj = t;
+
+		java.util.ArrayList<T> childList = new java.util.ArrayList<T>();
+
+		for (LayoutEntity entity : mChildEntities)
+		{
+			if (entity.getClass() == obj.getClass())
+			{
+				childList.add((T)entity);
+			}
+		}
+
+		return (LayoutCollection<T>) new LayoutCollection(childList);
+	}
+
+	/** 
+	 Called before the child entities are accessed. Entities whose children are built on demand
+	 override this method to build them.
+	*/
+	protected void EnsureChildEntities()
+	{
+	}
+
+
+	protected String mKind;
+	protected int mPageIndex;
+	protected Node mParentNode;
+	protected Rectangle2D mRectangle;
+	protected int mType; //LayoutEntityType
+	protected LayoutEntity mParent;
+	protected java.util.ArrayList<LayoutEntity> mChildEntities = new java.util.ArrayList<LayoutEntity>();
+}
+  
+
+/** 
+Receives the entities visited by <see cref="LayoutEntity.Accept"/>.
+*/
+interface LayoutEntityVisitor
+{
+	/** 
+	 Called for every visited entity. Returns a VisitorAction value.
+	*/
+	int visit(LayoutEntity entity) throws Exception;
+}
+
+/** 
+Enumerates the descendants of a layout entity in document order without recursion.
+
+The cursor keeps the path from the root to the current entity together with the position in each
+child list, so the traversal depth is not limited by the Java stack and no collections are built.
+Child entities of pages of a lazy <see cref="RenderedDocument"/> are built when the cursor enters them.
+*/
+class LayoutEntityCursor
+{
+	LayoutEntityCursor(LayoutEntity root, int type)
+	{
+		mType = type;
+		push(root);
+	}
+
+	/** 
+	 Moves to the next entity that matches the type mask. Returns false when there are no more entities.
+	*/
+	public final boolean moveNext()
+	{
+		while (mDepth > 0)
+		{
+			LayoutEntity parent = mParents[mDepth - 1];
+			int index = mChildIndexes[mDepth - 1];
+
+			if (index == 0)
+			{
+				parent.EnsureChildEntities();
+			}
+
+			if (index < parent.mChildEntities.size())
+			{
+				mChildIndexes[mDepth - 1] = index + 1;
+				LayoutEntity entity = parent.mChildEntities.get(index);
+				push(entity);
+
+				if (isMatch(entity, mType))
+				{
+					mCurrent = entity;
+					return true;
+				}
+			}
+			else
+			{
+				pop();
+			}
+		}
+
+		mCurrent = null;
+		return false;
+	}
+
+	/** 
+	 Gets the entity the cursor is positioned at, or null before the first and after the last call to moveNext.
+	*/
+	public final LayoutEntity getCurrent()
+	{
+		return mCurrent;
+	}
+
+	/** 
+	 Makes the next call to moveNext continue after the descendants of the current entity.
+	*/
+	public final void skipChildren()
+	{
+		if (mCurrent != null && mDepth > 0 && mParents[mDepth - 1] == mCurrent)
+		{
+			pop();
+		}
+	}
+
+	static boolean isMatch(LayoutEntity entity, int type)
+	{
+		return (entity.getType() & type) == entity.getType();
+	}
+
+	private void push(LayoutEntity entity)
+	{
+		if (mDepth == mParents.length)
+		{
+			mParents = java.util.Arrays.copyOf(mParents, mDepth * 2);
+			mChildIndexes = java.util.Arrays.copyOf(mChildIndexes, mDepth * 2);
+		}
+
+		mParents[mDepth] = entity;
+		mChildIndexes[mDepth] = 0;
+		mDepth++;
+	}
+
+	private void pop()
+	{
+		mDepth--;
+		mParents[mDepth] = null;
+	}
+
+	private final int mType;
+	private LayoutEntity mCurrent;
+	private LayoutEntity[] mParents = new LayoutEntity[16];
+	private int[] mChildIndexes = new int[16];
+	private int mDepth;
+}
+
+//////////////////////////////////////
+/** 
+Represents a generic collection of layout entity types.
+*/
+class LayoutCollection<T> implements Iterable<T> // extends LayoutEntity>
+{
+	/** 
+	 Reserved for internal use.
+	*/
+	public LayoutCollection(java.util.ArrayList<T> baseList)
+	{
+		mBaseList = baseList;
+	}
+
+	/** 
+	 Provides a simple "foreach" style iteration over the collection of nodes. 
+	*/
+	public final java.util.Iterator GetEnumerator()
+	{
+		return mBaseList.iterator();
+	}
+
+	/** 
+	 Provides a simple "foreach" style iteration over the collection of nodes. 
+	*/
+	public final java.util.Iterator<T> iterator()
+	{
+		return mBaseList.iterator();
+	}
+
+	/** 
+	 Returns the first entity in the collection.
+	*/
+	public final T getFirst()
+	{
+		if (mBaseList.size() > 0)
+		{
+			return mBaseList.get(0);
+		}
+		else
+		{
+			return null;
+		}
+	}
+
+	/** 
+	 Returns the last entity in the collection.
+	*/
+	public final T getLast()
+	{
+		if (mBaseList.size() > 0)
+		{
+			return mBaseList.get(mBaseList.size() - 1);
+		}
+		else
+		{
+			return null;
+		}
+	}
+
+	/** 
+	 Retrieves the entity at the given index. 
+	 
+	 <p>The index is zero-based.</p>
+	 <p>If index is greater than or equal to the number of items in the list, this returns a null reference.</p>
+	*/
+	public final T getItem(int index)
+	{
+		return mBaseList.get(index);
+	}
+
+	/** 
+	 Gets the number of entities in the collection.
+	*/
+	public final int getCount()
+	{
+		return mBaseList.size();
+	}
+
+	private java.util.ArrayList<T> mBaseList;
+}
+
+/** 
+Represents an entity that contains lines and rows.
+*/
+class StoryLayoutEntity extends LayoutEntity
+{
+	/** 
+	 Provides access to the lines of a story.
+	*/
+	public final LayoutCollection<RenderedLine> getLines()
+	{
+		return GetChildNodes(new RenderedLine());
+	}
+
+	/** 
+	 Provides access to the row entities of a table.
+	*/
+	public final LayoutCollection<RenderedRow> getRows()
+	{
+		return GetChildNodes(new RenderedRow());
+	}
+
+	/** 
+	 Returns the paragraph of the first line of the story, or null if the story has no lines or the line has no paragraph.
+	*/
+	final Paragraph getFirstParagraph()
+	{
+		RenderedLine line = getLines().getFirst();
+		return (line == null) ? null : line.getParagraph();
+	}
+}
+
+/** 
+Represents line of characters of text and inline objects.
+*/
+class RenderedLine extends LayoutEntity
+{
+	/** 
+	 Exports the contents of the entity into a string in plain text format.
+	*/
+	@Override
+	public String getText()
+	{
+		return super.getText() + "\n";
+	}
+
+	/** 
+	 Returns the paragraph that corresponds to the layout entity.  
+	 
+	 This property may return null for some lines such as those inside the header or footer.
+	*/
+	public final Paragraph getParagraph()
+	{
+		return (Paragraph)getParentNode();
+	}
+
+	/** 
+	 Provides access to the spans of the line.
+	*/
+	public final LayoutCollection<RenderedSpan> getSpans()
+	{
+		return GetChildNodes(new RenderedSpan());
+	}
+}
+
+/** 
+Represents one or more characters in a line.
+This include special characters like field start/end markers, bookmarks and comments.
+*/
+class RenderedSpan extends LayoutEntity
+{
+	public RenderedSpan()
+	{
+	}
+
+	public RenderedSpan(String text)
+	{
+		mText = text;
+	}
+
+	/** 
+	 Gets kind of the span. This cannot be null.
+	 
+	 This is a more specific type of the current entity, e.g. bookmark span has Span type and
+	 may have either a BOOKMARKSTART or BOOKMARKEND kind.
+	*/
+	public final String getKind()
+	{
+		return mKind;
+	}
+
+	/** 
+	 Exports the contents of the entity into a string in plain text format.
+	*/
+	@Override
+	public String getText()
+	{
+		return mText;
+	}
+
+	/** 
+	 Returns the node that corresponds to this layout entity.  
+	 
+	 This property returns null for spans that originate from Run nodes or nodes that are inside the header or footer.
+	*/
+	@Override
+	public Node getParentNode()
+	{
+		return mParentNode;
+	}
+
+	private String mText;
+}
+
+/** 
+Represents the header/footer content on a page.
+*/
+class RenderedHeaderFooter extends StoryLayoutEntity
+{
+	/** 
+	 Returns the type of the header or footer.
+	*/
+	public final String getKind()
+	{
+		return mKind;
+	}
+}
+
+/** 
+Represents page of a document.
+*/
+class RenderedPage extends LayoutEntity
+{
+	/** 
+	 Provides access to the columns of the page.
+	*/
+	public final LayoutCollection<RenderedColumn> getColumns()
+	{
+		return GetChildNodes(new RenderedColumn());
+	}
+
+	/** 
+	 Provides access to the header and footers of the page.
+	*/
+	public final LayoutCollection<RenderedHeaderFooter> getHeaderFooters()
+	{
+		return GetChildNodes(new RenderedHeaderFooter());
+	}
+
+	/** 
+	 Provides access to the comments of the page.
+	*/
+	public final LayoutCollection<RenderedComment> getComments()
+	{
+		return GetChildNodes(new RenderedComment());
+	}
+
+	/** 
+	 Returns the section that corresponds to the layout entity.  
+	*/
+	public final Section getSection()
+	{
+		return (Section)getParentNode();
+	}
+
+	/** 
+	 Returns the node that corresponds to this layout entity.  
+	*/
+	@Override
+	public Node getParentNode()
+	{
+		RenderedColumn column = getColumns().getFirst();
+		Paragraph paragraph = (column == null) ? null : column.getFirstParagraph();
+		return (paragraph == null) ? null : paragraph.getParentSection();
+	}
+
+	/** 
+	 Builds the columns, lines and spans of the page on first access if the page was created by a lazy <see cref="RenderedDocument"/>.
+	*/
+	@Override
+	protected void EnsureChildEntities()
+	{
+		RenderedDocument document = mPendingDocument;
+		if (document != null)
+		{
+			document.MaterializePage(this);
+		}
+	}
+
+	/** 
+	 The document that still has to build the child entities of this page, or null once they are built.
+	*/
+	volatile RenderedDocument mPendingDocument;
+}
+
+/** 
+Represents a table row.
+*/
+class RenderedRow extends LayoutEntity
+{
+	/** 
+	 Provides access to the cells of the row.
+	*/
+	public final LayoutCollection<RenderedCell> getCells()
+	{
+		return GetChildNodes(new RenderedCell());
+	}
+
+	/** 
+	 Returns the row that corresponds to the layout entity.  
+	 
+	 This property may return null for some rows such as those inside the header or footer.
+	*/
+	public final Row getRow()
+	{
+		return (Row)getParentNode();
+	}
+
+	/** 
+	 Returns the table that corresponds to the layout entity.  
+	 
+	 This property may return null for some tables such as those inside the header or footer.
+	*/
+	public final Table getTable()
+	{
+		Row row = getRow();
+		return (row == null) ? null : row.getParentTable();
+	}
+
+	/** 
+	 Returns the node that corresponds to this layout entity.  
+	 
+	 This property may return null for nodes that are inside the header or footer.
+	*/
+	@Override
+	public Node getParentNode()
+	{
+		RenderedCell cell = getCells().getFirst();
+		Paragraph paragraph = (cell == null) ? null : cell.getFirstParagraph();
+		return (paragraph == null) ? null : paragraph.getAncestor(NodeType.ROW);
+	}
+}
+
+/** 
+Represents a column of text on a page.
+*/
+class RenderedColumn extends StoryLayoutEntity
+{
+	/** 
+	 Provides access to the footnotes of the page.
+	*/
+	public final LayoutCollection<RenderedFootnote> getFootnotes()
+	{
+		return GetChildNodes(new RenderedFootnote());
+	}
+
+	/** 
+	 Provides access to the endnotes of the page.
+	*/
+	public final LayoutCollection<RenderedEndnote> getEndnotes()
+	{
+		return GetChildNodes(new RenderedEndnote());
+	}
+
+	/** 
+	 Provides access to the note separators of the page.
+	*/
+	public final LayoutCollection<RenderedNoteSeparator> getNoteSeparators()
+	{
+		return GetChildNodes(new RenderedNoteSeparator());
+	}
+
+	/** 
+	 Returns the body that corresponds to the layout entity.  
+	*/
+	public final Body getBody()
+	{
+		return (Body)getParentNode();
+	}
+
+	/** 
+	 Returns the node that corresponds to this layout entity.  
+	*/
+	@Override
+	public Node getParentNode()
+	{
+		Paragraph paragraph = getFirstParagraph();
+		return (paragraph == null) ? null : paragraph.getParentSection().getBody();
+	}
+}
+
+/** 
+Represents a table cell.
+*/
+class RenderedCell extends StoryLayoutEntity
+{
+	/** 
+	 Returns the cell that corresponds to the layout entity.  
+	 
+	 This property may return null for some cells such as those inside the header or footer.
+	*/
+	public final Cell getCell()
+	{
+		return (Cell)getParentNode();
+	}
+
+	/** 
+	 Returns the node that corresponds to this layout entity.  
+	 
+	 This property may return null for nodes that are inside the header or footer.
+	*/
+	@Override
+	public Node getParentNode()
+	{
+		Paragraph paragraph = getFirstParagraph();
+		return (paragraph == null) ? null : paragraph.getAncestor(NodeType.CELL);
+	}
+}
+
+/** 
+Represents placeholder for footnote content.
+*/
+class RenderedFootnote extends StoryLayoutEntity
+{
+	/** 
+	 Returns the footnote that corresponds to the layout entity.  
+	*/
+	public final Footnote getFootnote()
+	{
+		return (Footnote)getParentNode();
+	}
+
+	/** 
+	 Returns the node that corresponds to this layout entity.  
+	*/
+	@Override
+	public Node getParentNode()
+	{
+		Paragraph paragraph = getFirstParagraph();
+		return (paragraph == null) ? null : paragraph.getAncestor(NodeType.FOOTNOTE);
+	}
+}
+
+/** 
+Represents placeholder for endnote content.
+*/
+class RenderedEndnote extends StoryLayoutEntity
+{
+	/** 
+	 Returns the endnote that corresponds to the layout entity.  
+	*/
+	public final Footnote getEndnote()
+	{
+		return (Footnote)getParentNode();
+	}
+
+	/** 
+	 Returns the node that corresponds to this layout entity.  
+	*/
+	@Override
+	public Node getParentNode()
+	{
+		Paragraph paragraph = getFirstParagraph();
+		return (paragraph == null) ? null : paragraph.getAncestor(NodeType.FOOTNOTE);
+	}
+}
+
+/** 
+Represents text area inside of a shape.
+*/
+class RenderedTextBox extends StoryLayoutEntity
+{
+	/** 
+	 Returns the Shape or DrawingML that corresponds to the layout entity.  
+	 
+	 This property may return null for some Shapes or DrawingML such as those inside the header or footer.
+	*/
+	@Override
+	public Node getParentNode()
+	{
+		Paragraph paragraph = getFirstParagraph();
+		return (paragraph == null) ? null : paragraph.getAncestor(NodeType.SHAPE);
+	}
+}
+
+/** 
+Represents placeholder for comment content.
+*/
+class RenderedComment extends StoryLayoutEntity
+{
+	/** 
+	 Returns the comment that corresponds to the layout entity.  
+	*/
+	public final Comment getComment()
+	{
+		return (Comment)getParentNode();
+	}
+
+	/** 
+	 Returns the node that corresponds to this layout entity.  
+	*/
+	@Override
+	public Node getParentNode()
+	{
+		Paragraph paragraph = getFirstParagraph();
+		return (paragraph == null) ? null : paragraph.getAncestor(NodeType.COMMENT);
+	}
+}
+
+/** 
+Represents footnote/endnote separator.
+*/
+class RenderedNoteSeparator extends StoryLayoutEntity
+{
+	/** 
+	 Returns the footnote/endnote that corresponds to the layout entity.  
+	*/
+	public final Footnote getFootnote()
+	{
+		return (Footnote)getParentNode();
+	}
+
+	/** 
+	 Returns the node that corresponds to this layout entity.  
+	*/
+	@Override
+	public Node getParentNode()
+	{
+		Paragraph paragraph = getFirstParagraph();
+		return (paragraph == null) ? null : paragraph.getAncestor(NodeType.FOOTNOTE);
+	}
+}
\ No newline at end of file
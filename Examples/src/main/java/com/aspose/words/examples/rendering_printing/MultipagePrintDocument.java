@@ -5,6 +5,7 @@ import java.awt.Dimension;
 import java.awt.Graphics;
 import java.awt.Graphics2D;
 import java.awt.geom.Point2D;
+import java.awt.image.BufferedImage;
 import java.awt.print.PageFormat;
 import java.awt.print.Printable;
 
@@ -22,6 +23,11 @@ public class MultipagePrintDocument implements Printable {
 	private int mPagesPerSheet;
 	private boolean mPrintPageBorders;
 	private AttributeSet mAttributeSet;
+	private PageRasterCache mRasterCache;
+	private int mRasterResolution;
+	private int mPrefetchSheets;
+	private SheetLayout mSheetLayout;
+	private SheetPrefetcher mPrefetcher;
 	//ExEnd:DataAndStateFields
 
 	//ExStart:ConstructorOfCustomPrintDocumentClass
@@ -36,30 +42,69 @@ public class MultipagePrintDocument implements Printable {
 	}
 	//ExEnd:ConstructorOfCustomPrintDocumentClass
 
+	//ExStart:ConstructorWithRasterCache
+	/**
+	 * Creates a print document that draws pages from a raster cache instead of rendering them every time
+	 * the print system asks for a sheet. Printing the same sheet again or printing the document again is
+	 * served from the cache.
+	 *
+	 * @param rasterResolution The resolution of the cached pages in dots per inch, e.g. the printer resolution.
+	 */
+	public MultipagePrintDocument(Document document, int pagesPerSheet, boolean printPageBorders, AttributeSet attributes,
+			PageRasterCache rasterCache, int rasterResolution) {
+		this(document, pagesPerSheet, printPageBorders, attributes);
+
+		mRasterCache = rasterCache;
+		mRasterResolution = rasterResolution;
+	}
+	//ExEnd:ConstructorWithRasterCache
+
+	//ExStart:ConstructorWithPrefetching
+	/**
+	 * Creates a print document that renders the pages of upcoming sheets into the raster cache on a background
+	 * thread while the print system spools the current sheet. The background thread renders from its own copy
+	 * of the document and never runs more than the specified number of sheets ahead of the printer.
+	 *
+	 * @param prefetchSheets The number of sheets to render ahead of the sheet being printed.
+	 */
+	public MultipagePrintDocument(Document document, int pagesPerSheet, boolean printPageBorders, AttributeSet attributes,
+			PageRasterCache rasterCache, int rasterResolution, int prefetchSheets) {
+		this(document, pagesPerSheet, printPageBorders, attributes, rasterCache, rasterResolution);
+
+		if (rasterCache == null && prefetchSheets > 0)
+			throw new IllegalArgumentException("Prefetching requires a raster cache.");
+
+		mPrefetchSheets = prefetchSheets;
+	}
+	//ExEnd:ConstructorWithPrefetching
+
 	//ExStart:GeneratesPrintedPage
 	public int print(Graphics g, PageFormat pf, int page) {
-		// The page start and end indices as defined in the attribute set.
-		int[][] pageRanges = ((PageRanges) mAttributeSet.get(PageRanges.class)).getMembers();
-		int fromPage = pageRanges[0][0] - 1;
-		int toPage = pageRanges[0][1] - 1;
-
-		Dimension thumbCount = getThumbCount(mPagesPerSheet, pf);
+		// The page range and the thumbnail grid are the same for all sheets of a print job. They are calculated
+		// again when the job starts over or the page format changes.
+		if (page == 0 || mSheetLayout == null || !mSheetLayout.matches(pf))
+			mSheetLayout = new SheetLayout(pf);
 
-		// Calculate the page index which is to be rendered next.
-		int pagesOnCurrentSheet = (int) (page * (thumbCount.getWidth() * thumbCount.getHeight()));
+		SheetLayout layout = mSheetLayout;
 
 		// If the page index is more than the total page range then there is nothing more to render.
-		if (pagesOnCurrentSheet > (toPage - fromPage))
+		if (!layout.hasSheet(page)) {
+			stopPrefetching();
 			return Printable.NO_SUCH_PAGE;
+		}
+
+		// Let the background thread render the next sheets while this one is spooled.
+		if (mPrefetchSheets > 0)
+			prefetchSheetsAfter(layout, page);
 
-		// Calculate the size of each thumbnail placeholder in points.
-		Point2D.Float thumbSize = new Point2D.Float((float) (pf.getImageableWidth() / thumbCount.getWidth()), (float) (pf.getImageableHeight() / thumbCount.getHeight()));
+		Dimension thumbCount = layout.mThumbCount;
+		Point2D.Float thumbSize = layout.mThumbSize;
 
 		// Calculate the number of the first page to be printed on this sheet of paper.
-		int startPage = pagesOnCurrentSheet + fromPage;
+		int startPage = layout.getFirstPage(page);
 
 		// Select the number of the last page to be printed on this sheet of paper.
-		int pageTo = Math.max(startPage + mPagesPerSheet - 1, toPage);
+		int pageTo = layout.getLastPage(page);
 
 		// Loop through the selected pages from the stored current page to calculated last page.
 		for (int pageIndex = startPage; pageIndex <= pageTo; pageIndex++) {
@@ -79,7 +124,11 @@ public class MultipagePrintDocument implements Printable {
 
 				// Render the document page to the Graphics object using calculated coordinates and thumbnail placeholder size.
 				// The useful return value is the scale at which the page was rendered.
-				float scale = mDocument.renderToSize(pageIndex, (Graphics2D) g, leftPos, topPos, (int) thumbSize.x, (int) thumbSize.y);
+				float scale;
+				if (mRasterCache != null)
+					scale = drawCachedPage(g, pageIndex, leftPos, topPos, thumbSize);
+				else
+					scale = mDocument.renderToSize(pageIndex, (Graphics2D) g, leftPos, topPos, (int) thumbSize.x, (int) thumbSize.y);
 
 				// Draw the page borders (the page thumbnail could be smaller than the thumbnail placeholder size).
 				if (mPrintPageBorders) {
@@ -105,6 +154,199 @@ public class MultipagePrintDocument implements Printable {
 	}
 	//ExEnd:GeneratesPrintedPage
 
+	//ExStart:DrawCachedPage
+	/**
+	 * Draws a page from the raster cache fitted into the thumbnail placeholder, as renderToSize would.
+	 * Returns the scale at which the page was drawn.
+	 */
+	private float drawCachedPage(Graphics g, int pageIndex, int leftPos, int topPos, Point2D.Float thumbSize) throws Exception {
+		Point2D.Float pageSize = mDocument.getPageInfo(pageIndex).getSizeInPoints();
+		float scale = getPageScale(mDocument, pageIndex, thumbSize);
+
+		BufferedImage image = mRasterCache.getPage(pageIndex, scale, mRasterResolution);
+		if (image != null)
+			g.drawImage(image, leftPos, topPos, (int) (pageSize.x * scale), (int) (pageSize.y * scale), null);
+
+		return scale;
+	}
+
+	/**
+	 * Returns the scale at which a page fits into the thumbnail placeholder. The printing thread and the
+	 * prefetching thread use it with their own documents, so they look for the same pages in the cache.
+	 */
+	private static float getPageScale(Document document, int pageIndex, Point2D.Float thumbSize) throws Exception {
+		Point2D.Float pageSize = document.getPageInfo(pageIndex).getSizeInPoints();
+		return Math.min(thumbSize.x / pageSize.x, thumbSize.y / pageSize.y);
+	}
+	//ExEnd:DrawCachedPage
+
+	//ExStart:PrefetchSheets
+	/**
+	 * Tells the background thread which sheet is being printed and starts the thread on the first sheet.
+	 */
+	private void prefetchSheetsAfter(SheetLayout layout, int sheet) {
+		if (mPrefetcher == null) {
+			Document prefetchDocument;
+			try {
+				// A document may only be used by one thread at a time.
+				prefetchDocument = mDocument.deepClone();
+			} catch (Exception e) {
+				// Print without prefetching.
+				mPrefetchSheets = 0;
+				return;
+			}
+
+			// The prefetcher knows the printed sheet before its thread starts waiting for one.
+			mPrefetcher = new SheetPrefetcher(prefetchDocument, layout, sheet);
+			Thread thread = new Thread(mPrefetcher, "Sheet prefetcher");
+			thread.setDaemon(true);
+			thread.start();
+			return;
+		}
+
+		mPrefetcher.sheetPrinted(layout, sheet);
+	}
+
+	/**
+	 * Stops the background thread. This is called after the last sheet has been printed, call it if
+	 * the print job is cancelled.
+	 */
+	public void stopPrefetching() {
+		if (mPrefetcher != null) {
+			mPrefetcher.stop();
+			mPrefetcher = null;
+		}
+	}
+	//ExEnd:PrefetchSheets
+
+	//ExStart:SheetLayout
+	/**
+	 * The pages and the thumbnail grid of the sheets of a print job.
+	 */
+	private class SheetLayout {
+		SheetLayout(PageFormat pf) {
+			// The page start and end indices as defined in the attribute set.
+			int[][] pageRanges = ((PageRanges) mAttributeSet.get(PageRanges.class)).getMembers();
+			mFromPage = pageRanges[0][0] - 1;
+			mToPage = pageRanges[0][1] - 1;
+
+			mThumbCount = getThumbCount(mPagesPerSheet, pf);
+
+			// Calculate the size of each thumbnail placeholder in points.
+			mThumbSize = new Point2D.Float((float) (pf.getImageableWidth() / mThumbCount.getWidth()), (float) (pf.getImageableHeight() / mThumbCount.getHeight()));
+
+			mPageFormat = pf;
+		}
+
+		/**
+		 * Returns true if the page format has the same size and imageable area as the one the layout was made for.
+		 */
+		boolean matches(PageFormat pf) {
+			return pf == mPageFormat || (pf.getWidth() == mPageFormat.getWidth() && pf.getHeight() == mPageFormat.getHeight()
+					&& pf.getImageableX() == mPageFormat.getImageableX() && pf.getImageableY() == mPageFormat.getImageableY()
+					&& pf.getImageableWidth() == mPageFormat.getImageableWidth() && pf.getImageableHeight() == mPageFormat.getImageableHeight());
+		}
+
+		boolean hasSheet(int sheet) {
+			return sheet * getPagesPerSheet() <= mToPage - mFromPage;
+		}
+
+		int getFirstPage(int sheet) {
+			return mFromPage + sheet * getPagesPerSheet();
+		}
+
+		int getLastPage(int sheet) {
+			return Math.min(getFirstPage(sheet) + getPagesPerSheet() - 1, mToPage);
+		}
+
+		private int getPagesPerSheet() {
+			return mThumbCount.width * mThumbCount.height;
+		}
+
+		private final int mFromPage;
+		private final int mToPage;
+		private final Dimension mThumbCount;
+		private final Point2D.Float mThumbSize;
+		private final PageFormat mPageFormat;
+	}
+	//ExEnd:SheetLayout
+
+	//ExStart:SheetPrefetcher
+	/**
+	 * Renders the pages of the sheets that follow the sheet being printed into the raster cache.
+	 */
+	private class SheetPrefetcher implements Runnable {
+		SheetPrefetcher(Document document, SheetLayout layout, int printedSheet) {
+			mPrefetchDocument = document;
+			mLayout = layout;
+			mNextSheet = printedSheet + 1;
+			mPrintedSheet = printedSheet;
+		}
+
+		/**
+		 * Called by the printing thread for every sheet. The prefetcher waits when it is as many sheets ahead as allowed.
+		 */
+		synchronized void sheetPrinted(SheetLayout layout, int sheet) {
+			// A new layout means the print job started over or the page format has changed.
+			if (layout != mLayout) {
+				mLayout = layout;
+				mNextSheet = sheet + 1;
+			} else if (mNextSheet <= sheet) {
+				mNextSheet = sheet + 1;
+			}
+
+			mPrintedSheet = sheet;
+			notifyAll();
+		}
+
+		synchronized void stop() {
+			mIsStopped = true;
+			notifyAll();
+		}
+
+		public void run() {
+			try {
+				while (true) {
+					SheetLayout layout;
+					int sheet;
+
+					synchronized (this) {
+						while (!mIsStopped && (mNextSheet > mPrintedSheet + mPrefetchSheets || !mLayout.hasSheet(mNextSheet)))
+							wait();
+
+						if (mIsStopped)
+							return;
+
+						layout = mLayout;
+						sheet = mNextSheet++;
+					}
+
+					// A page that the printing thread is rendering already is not rendered again, and the printing
+					// thread waits for a page that is being prefetched instead of rendering it too.
+					for (int pageIndex = layout.getFirstPage(sheet); pageIndex <= layout.getLastPage(sheet); pageIndex++) {
+						float scale = getPageScale(mPrefetchDocument, pageIndex, layout.mThumbSize);
+						if (!mRasterCache.containsPage(pageIndex, scale, mRasterResolution))
+							mRasterCache.getPage(pageIndex, scale, mRasterResolution, mPrefetchRenderer);
+					}
+				}
+			} catch (Exception e) {
+				// Prefetching only saves time, the printing thread renders the pages that were not prefetched.
+			}
+		}
+
+		private final Document mPrefetchDocument;
+		private final PageRasterCache.PageRenderer mPrefetchRenderer = new PageRasterCache.PageRenderer() {
+			public BufferedImage render(int pageIndex, float scale, int resolution) throws Exception {
+				return PageRasterCache.renderDocumentPage(mPrefetchDocument, pageIndex, scale, resolution);
+			}
+		};
+		private SheetLayout mLayout;
+		private int mNextSheet;
+		private int mPrintedSheet;
+		private boolean mIsStopped;
+	}
+	//ExEnd:SheetPrefetcher
+
 	//ExStart:GetThumbCount
 	private Dimension getThumbCount(int pagesPerSheet, PageFormat pf) {
 		Dimension size;
@@ -0,0 +1,384 @@
+package com.aspose.words.examples.rendering_printing;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import com.aspose.words.Document;
+import com.aspose.words.ImageSaveOptions;
+import com.aspose.words.SaveFormat;
+
+/**
+ * Saves the pages of a document into a multipage TIFF image while rendering and compressing them on several threads.
+ *
+ * Every page is saved by Aspose.Words as a single page TIFF image with the compression of the save options, e.g.
+ * CCITT4 for fax or LZW for archives. The image directory (IFD) and the strips of the page are then appended to the
+ * stream as soon as all pages before it have been written. At most two pages per thread are held in memory,
+ * no matter how many pages the document has.
+ */
+public class MultipageTiffWriter {
+	public MultipageTiffWriter(Document document, int parallelism) {
+		if (parallelism < 1)
+			throw new IllegalArgumentException("The number of threads must be positive.");
+
+		mDocument = document;
+		mParallelism = parallelism;
+	}
+
+	/**
+	 * Writes the pages selected by the PageIndex and PageCount of the save options to the stream. The stream is not closed.
+	 */
+	public void save(OutputStream stream, ImageSaveOptions options) throws Exception {
+		if (options.getSaveFormat() != SaveFormat.TIFF)
+			throw new IllegalArgumentException("The save options must be for TIFF.");
+
+		int startPageIndex = options.getPageIndex();
+		int pageCount = Math.min(options.getPageCount(), mDocument.getPageCount() - startPageIndex);
+		if (startPageIndex < 0 || pageCount <= 0)
+			throw new IllegalArgumentException("The page range is outside of the document.");
+
+		// A document may only be used by one thread at a time, so every worker renders from its own copy.
+		// The source document already has its layout, so one worker uses it directly.
+		int workerCount = Math.max(1, Math.min(mParallelism, pageCount));
+		final BlockingQueue<RenderTarget> targets = new ArrayBlockingQueue<RenderTarget>(workerCount);
+		targets.add(new RenderTarget(mDocument, options.deepClone()));
+		for (int i = 1; i < workerCount; i++)
+			targets.add(new RenderTarget(mDocument.deepClone(), options.deepClone()));
+
+		ExecutorService executor = Executors.newFixedThreadPool(workerCount);
+		ArrayDeque<Future<TiffPage>> pendingPages = new ArrayDeque<Future<TiffPage>>();
+		TiffStreamWriter writer = new TiffStreamWriter(stream, pageCount);
+
+		try {
+			for (int pageIndex = startPageIndex; pageIndex < startPageIndex + pageCount; pageIndex++) {
+				// Write finished pages before rendering runs too far ahead.
+				if (pendingPages.size() == workerCount * 2)
+					writer.writePage(pendingPages.removeFirst().get());
+
+				final int currentPageIndex = pageIndex;
+				pendingPages.addLast(executor.submit(new Callable<TiffPage>() {
+					public TiffPage call() throws Exception {
+						return renderPage(targets, currentPageIndex);
+					}
+				}));
+			}
+
+			while (!pendingPages.isEmpty())
+				writer.writePage(pendingPages.removeFirst().get());
+		} catch (ExecutionException e) {
+			throw (e.getCause() instanceof Exception) ? (Exception) e.getCause() : e;
+		} finally {
+			executor.shutdownNow();
+		}
+
+		stream.flush();
+	}
+
+	private static TiffPage renderPage(BlockingQueue<RenderTarget> targets, int pageIndex) throws Exception {
+		RenderTarget target = targets.take();
+		try {
+			target.mOptions.setPageIndex(pageIndex);
+			target.mOptions.setPageCount(1);
+
+			ByteArrayOutputStream stream = new ByteArrayOutputStream();
+			target.mDocument.save(stream, target.mOptions);
+			return TiffPage.read(stream.toByteArray());
+		} finally {
+			targets.add(target);
+		}
+	}
+
+	/**
+	 * A document and save options that are used by one thread at a time.
+	 */
+	private static class RenderTarget {
+		RenderTarget(Document document, ImageSaveOptions options) {
+			mDocument = document;
+			mOptions = options;
+		}
+
+		private final Document mDocument;
+		private final ImageSaveOptions mOptions;
+	}
+
+	/**
+	 * A field of an image directory. Values are kept in little endian byte order.
+	 */
+	private static class TiffEntry {
+		TiffEntry(int tag, int type, int count, byte[] value) {
+			mTag = tag;
+			mType = type;
+			mCount = count;
+			mValue = value;
+		}
+
+		private final int mTag;
+		private final int mType;
+		private final int mCount;
+		private final byte[] mValue;
+	}
+
+	/**
+	 * The image directory and the strips (or tiles) of the first image of a TIFF file.
+	 */
+	private static class TiffPage {
+		static TiffPage read(byte[] data) throws IOException {
+			ByteBuffer buffer = ByteBuffer.wrap(data);
+			if (data.length < 8 || data[0] != data[1] || (data[0] != 'I' && data[0] != 'M'))
+				throw new IOException("The page is not a TIFF image.");
+
+			buffer.order(data[0] == 'I' ? ByteOrder.LITTLE_ENDIAN : ByteOrder.BIG_ENDIAN);
+			if (buffer.getShort(2) != 42)
+				throw new IOException("The page is not a TIFF image.");
+
+			TiffPage page = new TiffPage();
+			long[] dataOffsets = null;
+			long[] dataByteCounts = null;
+
+			int ifdOffset = buffer.getInt(4);
+			int entryCount = buffer.getShort(ifdOffset) & 0xFFFF;
+			for (int i = 0; i < entryCount; i++) {
+				int entryOffset = ifdOffset + 2 + i * 12;
+				int tag = buffer.getShort(entryOffset) & 0xFFFF;
+				int type = buffer.getShort(entryOffset + 2) & 0xFFFF;
+				int count = buffer.getInt(entryOffset + 4);
+				if (type >= TYPE_SIZES.length || TYPE_SIZES[type] == 0)
+					throw new IOException("Unknown TIFF field type " + type + ".");
+
+				int valueOffset = count * TYPE_SIZES[type] <= 4 ? entryOffset + 8 : buffer.getInt(entryOffset + 8);
+
+				switch (tag) {
+				case TAG_STRIP_OFFSETS:
+				case TAG_TILE_OFFSETS:
+					page.mDataOffsetsTag = tag;
+					dataOffsets = readUnsigned(buffer, type, count, valueOffset);
+					break;
+				case TAG_STRIP_BYTE_COUNTS:
+				case TAG_TILE_BYTE_COUNTS:
+					page.mDataByteCountsTag = tag;
+					dataByteCounts = readUnsigned(buffer, type, count, valueOffset);
+					break;
+				case TAG_PAGE_NUMBER:
+				case TAG_SUB_IFDS:
+				case TAG_JPEG_INTERCHANGE_FORMAT:
+				case TAG_JPEG_INTERCHANGE_FORMAT_LENGTH:
+				case TAG_EXIF_IFD:
+				case TAG_GPS_IFD:
+					// The page number is written by the stream writer. Fields that point to other data are dropped.
+					break;
+				default:
+					page.mEntries.add(new TiffEntry(tag, type, count, readValue(buffer, type, count, valueOffset)));
+					break;
+				}
+			}
+
+			if (dataOffsets == null || dataByteCounts == null || dataOffsets.length != dataByteCounts.length)
+				throw new IOException("The page has no image data.");
+
+			page.mData = new byte[dataOffsets.length][];
+			for (int i = 0; i < dataOffsets.length; i++)
+				page.mData[i] = Arrays.copyOfRange(data, (int) dataOffsets[i], (int) (dataOffsets[i] + dataByteCounts[i]));
+
+			return page;
+		}
+
+		private static long[] readUnsigned(ByteBuffer buffer, int type, int count, int offset) throws IOException {
+			long[] values = new long[count];
+			for (int i = 0; i < count; i++) {
+				if (type == TYPE_SHORT)
+					values[i] = buffer.getShort(offset + i * 2) & 0xFFFF;
+				else if (type == TYPE_LONG)
+					values[i] = buffer.getInt(offset + i * 4) & 0xFFFFFFFFL;
+				else
+					throw new IOException("Unexpected type of image data offsets.");
+			}
+
+			return values;
+		}
+
+		/**
+		 * Reads the values of a field and converts them to little endian byte order.
+		 */
+		private static byte[] readValue(ByteBuffer buffer, int type, int count, int offset) {
+			byte[] value = new byte[count * TYPE_SIZES[type]];
+			ByteBuffer valueBuffer = ByteBuffer.wrap(value).order(ByteOrder.LITTLE_ENDIAN);
+
+			// Rationals are pairs of 32-bit numbers.
+			int unitSize = (type == TYPE_RATIONAL || type == TYPE_SRATIONAL) ? 4 : TYPE_SIZES[type];
+			for (int i = 0; i < value.length; i += unitSize) {
+				switch (unitSize) {
+				case 1:
+					valueBuffer.put(i, buffer.get(offset + i));
+					break;
+				case 2:
+					valueBuffer.putShort(i, buffer.getShort(offset + i));
+					break;
+				case 4:
+					valueBuffer.putInt(i, buffer.getInt(offset + i));
+					break;
+				default:
+					valueBuffer.putLong(i, buffer.getLong(offset + i));
+					break;
+				}
+			}
+
+			return value;
+		}
+
+		private final ArrayList<TiffEntry> mEntries = new ArrayList<TiffEntry>();
+		private int mDataOffsetsTag;
+		private int mDataByteCountsTag;
+		private byte[][] mData;
+	}
+
+	/**
+	 * Appends pages to a little endian TIFF stream. Every page is written as its image directory, then the values that
+	 * do not fit into the directory, then the image data. The stream is never rewound, because the size of a page is
+	 * known when it is written and the directory of the next page follows it directly.
+	 */
+	private static class TiffStreamWriter {
+		TiffStreamWriter(OutputStream stream, int pageCount) {
+			mStream = stream;
+			mPageCount = pageCount;
+		}
+
+		void writePage(TiffPage page) throws IOException {
+			if (mPageNumber == 0)
+				write(ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN).put((byte) 'I').put((byte) 'I')
+						.putShort((short) 42).putInt(HEADER_SIZE).array());
+
+			int dataCount = page.mData.length;
+			long[] dataByteCounts = new long[dataCount];
+			for (int i = 0; i < dataCount; i++)
+				dataByteCounts[i] = page.mData[i].length;
+
+			// The data offsets are filled in when the position of the data is known.
+			TiffEntry dataOffsets = createLongEntry(page.mDataOffsetsTag, new long[dataCount]);
+
+			ArrayList<TiffEntry> entries = new ArrayList<TiffEntry>(page.mEntries);
+			entries.add(dataOffsets);
+			entries.add(createLongEntry(page.mDataByteCountsTag, dataByteCounts));
+			entries.add(new TiffEntry(TAG_PAGE_NUMBER, TYPE_SHORT, 2, ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN)
+					.putShort(0, (short) mPageNumber).putShort(2, (short) mPageCount).array()));
+			sortByTag(entries);
+
+			// Values of more than four bytes follow the directory, each starting on a word boundary.
+			long position = mPosition + 2 + entries.size() * 12 + 4;
+			long[] valueOffsets = new long[entries.size()];
+			for (int i = 0; i < entries.size(); i++) {
+				if (entries.get(i).mValue.length > 4) {
+					position += position & 1;
+					valueOffsets[i] = position;
+					position += entries.get(i).mValue.length;
+				}
+			}
+
+			ByteBuffer offsetValues = ByteBuffer.wrap(dataOffsets.mValue).order(ByteOrder.LITTLE_ENDIAN);
+			for (int i = 0; i < dataCount; i++) {
+				offsetValues.putInt(i * 4, (int) position);
+				position += page.mData[i].length;
+			}
+
+			// The directory of the next page starts on a word boundary after the data.
+			long pageEnd = position + (position & 1);
+			if (pageEnd > 0xFFFFFFFFL)
+				throw new IOException("The TIFF image is larger than 4 GB.");
+
+			ByteBuffer ifd = ByteBuffer.allocate(2 + entries.size() * 12 + 4).order(ByteOrder.LITTLE_ENDIAN);
+			ifd.putShort((short) entries.size());
+			for (int i = 0; i < entries.size(); i++) {
+				TiffEntry entry = entries.get(i);
+				ifd.putShort((short) entry.mTag).putShort((short) entry.mType).putInt(entry.mCount);
+				if (entry.mValue.length > 4)
+					ifd.putInt((int) valueOffsets[i]);
+				else
+					ifd.put(Arrays.copyOf(entry.mValue, 4));
+			}
+
+			boolean isLastPage = mPageNumber == mPageCount - 1;
+			ifd.putInt(isLastPage ? 0 : (int) pageEnd);
+			write(ifd.array());
+
+			for (int i = 0; i < entries.size(); i++) {
+				if (entries.get(i).mValue.length > 4) {
+					padToWord();
+					write(entries.get(i).mValue);
+				}
+			}
+
+			for (byte[] data : page.mData)
+				write(data);
+
+			padToWord();
+			mPageNumber++;
+		}
+
+		private static TiffEntry createLongEntry(int tag, long[] values) {
+			ByteBuffer value = ByteBuffer.allocate(values.length * 4).order(ByteOrder.LITTLE_ENDIAN);
+			for (long v : values)
+				value.putInt((int) v);
+
+			return new TiffEntry(tag, TYPE_LONG, values.length, value.array());
+		}
+
+		private static void sortByTag(ArrayList<TiffEntry> entries) {
+			Collections.sort(entries, new Comparator<TiffEntry>() {
+				public int compare(TiffEntry a, TiffEntry b) {
+					return a.mTag - b.mTag;
+				}
+			});
+		}
+
+		private void padToWord() throws IOException {
+			if ((mPosition & 1) != 0)
+				write(new byte[1]);
+		}
+
+		private void write(byte[] data) throws IOException {
+			mStream.write(data);
+			mPosition += data.length;
+		}
+
+		private final OutputStream mStream;
+		private final int mPageCount;
+		private int mPageNumber;
+		private long mPosition;
+	}
+
+	private static final int HEADER_SIZE = 8;
+
+	private static final int TYPE_SHORT = 3;
+	private static final int TYPE_LONG = 4;
+	private static final int TYPE_RATIONAL = 5;
+	private static final int TYPE_SRATIONAL = 10;
+	// The size in bytes of the TIFF field types, indexed by type.
+	private static final int[] TYPE_SIZES = { 0, 1, 1, 2, 4, 8, 1, 1, 2, 4, 8, 4, 8 };
+
+	private static final int TAG_STRIP_OFFSETS = 273;
+	private static final int TAG_STRIP_BYTE_COUNTS = 279;
+	private static final int TAG_PAGE_NUMBER = 297;
+	private static final int TAG_TILE_OFFSETS = 324;
+	private static final int TAG_TILE_BYTE_COUNTS = 325;
+	private static final int TAG_SUB_IFDS = 330;
+	private static final int TAG_JPEG_INTERCHANGE_FORMAT = 513;
+	private static final int TAG_JPEG_INTERCHANGE_FORMAT_LENGTH = 514;
+	private static final int TAG_EXIF_IFD = 34665;
+	private static final int TAG_GPS_IFD = 34853;
+
+	private final Document mDocument;
+	private final int mParallelism;
+}
@@ -26,12 +26,20 @@ public class MultiplePagesOnSheet {
 		attributes.add(new PageRanges(1, doc.getPageCount()));
 
 		// Pass the printer settings along with the other parameters to the print document.
-		MultipagePrintDocument awPrintDoc = new MultipagePrintDocument(doc, 4, true, attributes);
+		// The print system may ask for the same sheet more than once, so rendered pages are kept in a cache of up to 128 MB.
+		PageRasterCache rasterCache = new PageRasterCache(doc, 128L * 1024 * 1024);
+		// The pages of the next two sheets are rendered in the background while the current sheet is spooled.
+		MultipagePrintDocument awPrintDoc = new MultipagePrintDocument(doc, 4, true, attributes, rasterCache, 300, 2);
 
 		// Pass the document to be printed using the print job.
 		pj.setPrintable(awPrintDoc);
 
-		pj.print();
+		try {
+			pj.print();
+		} finally {
+			// Stop the background rendering if the job was cancelled.
+			awPrintDoc.stopPrefetching();
+		}
 		//ExEnd: MultiplePagesOnSheet
 	}
 
@@ -0,0 +1,294 @@
+package com.aspose.words.examples.rendering_printing;
+
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+import com.aspose.words.Document;
+
+/**
+ * Keeps rendered pages in memory so that repainting a preview or printing a page again does not render it again.
+ *
+ * Pages are cached by page index, scale and resolution. The cache is limited by the memory taken by the images:
+ * when a new page does not fit, the pages that were used least recently are dropped. Returned images are shared
+ * with the cache and must not be modified.
+ *
+ * Pages are rendered outside of the lock of the cache, so other threads can use the cache meanwhile. A page that
+ * is being rendered is rendered only once, threads that ask for it wait for the result.
+ */
+public class PageRasterCache {
+	/**
+	 * Renders a page when it is not in the cache.
+	 */
+	public interface PageRenderer {
+		/**
+		 * Returns the rendered page, or null if there is no such page.
+		 *
+		 * @param pageIndex The 0-based index of the page.
+		 */
+		BufferedImage render(int pageIndex, float scale, int resolution) throws Exception;
+	}
+
+	/**
+	 * Creates a cache of the pages of a document.
+	 *
+	 * @param maxBytes The memory the cached images may take.
+	 */
+	public PageRasterCache(final Document document, long maxBytes) {
+		this(new PageRenderer() {
+			public BufferedImage render(int pageIndex, float scale, int resolution) throws Exception {
+				// A document may only be used by one thread at a time.
+				synchronized (document) {
+					return renderDocumentPage(document, pageIndex, scale, resolution);
+				}
+			}
+		}, maxBytes);
+
+		mDocument = document;
+	}
+
+	/**
+	 * Creates a cache of pages rendered by the specified renderer. The renderer is called by every thread that
+	 * asks for a page that is not cached, so it may be called by several threads at the same time.
+	 *
+	 * @param maxBytes The memory the cached images may take.
+	 */
+	public PageRasterCache(PageRenderer renderer, long maxBytes) {
+		if (maxBytes <= 0)
+			throw new IllegalArgumentException("maxBytes");
+
+		mRenderer = renderer;
+		mMaxBytes = maxBytes;
+	}
+
+	/**
+	 * Returns the page from the cache, or renders and caches it. Returns null if there is no such page.
+	 */
+	public BufferedImage getPage(int pageIndex, float scale, int resolution) throws Exception {
+		return getPage(pageIndex, scale, resolution, mRenderer);
+	}
+
+	/**
+	 * Returns the page from the cache, or renders it with the specified renderer and caches it, e.g. on a background
+	 * thread that renders a copy of the document. Returns null if there is no such page.
+	 */
+	public BufferedImage getPage(final int pageIndex, final float scale, final int resolution, final PageRenderer renderer) throws Exception {
+		PageKey key = new PageKey(pageIndex, scale, resolution);
+		FutureTask<BufferedImage> rendering;
+		boolean isRenderedHere = false;
+		long generation;
+
+		synchronized (this) {
+			BufferedImage image = mPages.get(key);
+			if (image != null) {
+				mHitCount++;
+				return image;
+			}
+
+			rendering = mRenderings.get(key);
+			if (rendering == null) {
+				mMissCount++;
+				rendering = new FutureTask<BufferedImage>(new Callable<BufferedImage>() {
+					public BufferedImage call() throws Exception {
+						return renderer.render(pageIndex, scale, resolution);
+					}
+				});
+				mRenderings.put(key, rendering);
+				isRenderedHere = true;
+			}
+			generation = mGeneration;
+		}
+
+		if (!isRenderedHere)
+			return getResult(rendering);
+
+		rendering.run();
+
+		BufferedImage image = null;
+		try {
+			image = getResult(rendering);
+		} finally {
+			synchronized (this) {
+				// The page is not cached if the cache was invalidated while it was rendered.
+				if (mGeneration == generation) {
+					mRenderings.remove(key);
+					if (image != null)
+						addPage(key, image);
+				}
+			}
+		}
+
+		return image;
+	}
+
+	/**
+	 * Returns true if the page is in the cache or is being rendered.
+	 */
+	public synchronized boolean containsPage(int pageIndex, float scale, int resolution) {
+		PageKey key = new PageKey(pageIndex, scale, resolution);
+		return mPages.containsKey(key) || mRenderings.containsKey(key);
+	}
+
+	/**
+	 * Adds a page that was rendered outside of the cache, e.g. on a background thread from a copy of the document.
+	 */
+	public synchronized void putPage(int pageIndex, float scale, int resolution, BufferedImage image) {
+		PageKey key = new PageKey(pageIndex, scale, resolution);
+		if (!mPages.containsKey(key))
+			addPage(key, image);
+	}
+
+	/**
+	 * Drops all cached pages. Call it when the pages may look different, e.g. after the document was changed
+	 * or the page format of a preview was changed.
+	 */
+	public synchronized void invalidate() {
+		mPages.clear();
+		mRenderings.clear();
+		mSizeInBytes = 0;
+		mGeneration++;
+	}
+
+	/**
+	 * Rebuilds the page layout of the document and drops the pages rendered from the old layout.
+	 */
+	public void updatePageLayout() throws Exception {
+		if (mDocument == null)
+			throw new IllegalStateException("The cache does not render a document.");
+
+		synchronized (mDocument) {
+			mDocument.updatePageLayout();
+			invalidate();
+		}
+	}
+
+	/**
+	 * Gets the memory taken by the cached images.
+	 */
+	public synchronized long getSizeInBytes() {
+		return mSizeInBytes;
+	}
+
+	/**
+	 * Gets the number of pages that were returned from the cache.
+	 */
+	public synchronized int getHitCount() {
+		return mHitCount;
+	}
+
+	/**
+	 * Gets the number of pages that had to be rendered.
+	 */
+	public synchronized int getMissCount() {
+		return mMissCount;
+	}
+
+	/**
+	 * Renders a page of a document on a white background at the specified scale and resolution.
+	 */
+	static BufferedImage renderDocumentPage(Document document, int pageIndex, float scale, int resolution) throws Exception {
+		if (pageIndex < 0 || pageIndex >= document.getPageCount())
+			return null;
+
+		Dimension size = document.getPageInfo(pageIndex).getSizeInPixels(scale, resolution);
+		BufferedImage image = new BufferedImage(size.width, size.height, BufferedImage.TYPE_INT_RGB);
+
+		Graphics2D g = image.createGraphics();
+		try {
+			g.setColor(Color.WHITE);
+			g.fillRect(0, 0, size.width, size.height);
+			g.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+
+			// Pages are rendered in points, scale them to the requested resolution.
+			g.scale(resolution / 72.0, resolution / 72.0);
+			document.renderToScale(pageIndex, g, 0, 0, scale);
+		} finally {
+			g.dispose();
+		}
+
+		return image;
+	}
+
+	private static BufferedImage getResult(FutureTask<BufferedImage> rendering) throws Exception {
+		try {
+			return rendering.get();
+		} catch (ExecutionException e) {
+			throw (e.getCause() instanceof Exception) ? (Exception) e.getCause() : e;
+		}
+	}
+
+	private void addPage(PageKey key, BufferedImage image) {
+		long imageBytes = getSizeInBytes(image);
+
+		// A page that is larger than the whole cache is not cached.
+		if (imageBytes > mMaxBytes)
+			return;
+
+		Iterator<Map.Entry<PageKey, BufferedImage>> leastRecentlyUsed = mPages.entrySet().iterator();
+		while (mSizeInBytes + imageBytes > mMaxBytes) {
+			mSizeInBytes -= getSizeInBytes(leastRecentlyUsed.next().getValue());
+			leastRecentlyUsed.remove();
+		}
+
+		mPages.put(key, image);
+		mSizeInBytes += imageBytes;
+	}
+
+	private static long getSizeInBytes(BufferedImage image) {
+		return (long) image.getWidth() * image.getHeight() * 4;
+	}
+
+	/**
+	 * Identifies a rendered page.
+	 */
+	private static class PageKey {
+		PageKey(int pageIndex, float scale, int resolution) {
+			mPageIndex = pageIndex;
+			mScale = scale;
+			mResolution = resolution;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof PageKey))
+				return false;
+
+			PageKey other = (PageKey) obj;
+			return mPageIndex == other.mPageIndex && Float.compare(mScale, other.mScale) == 0 && mResolution == other.mResolution;
+		}
+
+		@Override
+		public int hashCode() {
+			return (mPageIndex * 31 + Float.floatToIntBits(mScale)) * 31 + mResolution;
+		}
+
+		private final int mPageIndex;
+		private final float mScale;
+		private final int mResolution;
+	}
+
+	/**
+	 * Instance variables.
+	 */
+	private final PageRenderer mRenderer;
+	private final long mMaxBytes;
+	private Document mDocument;
+	// Iterates from the least to the most recently used page.
+	private final LinkedHashMap<PageKey, BufferedImage> mPages = new LinkedHashMap<PageKey, BufferedImage>(16, 0.75f, true);
+	// The pages that are being rendered.
+	private final HashMap<PageKey, FutureTask<BufferedImage>> mRenderings = new HashMap<PageKey, FutureTask<BufferedImage>>();
+	// Changes when the cache is invalidated.
+	private long mGeneration;
+	private long mSizeInBytes;
+	private int mHitCount;
+	private int mMissCount;
+}
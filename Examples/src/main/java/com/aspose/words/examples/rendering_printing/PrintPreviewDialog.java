@@ -55,6 +55,17 @@ public class PrintPreviewDialog extends JFrame {
     private PrinterJob mPrintJob;
     private PageFormat mPageFormat;
     private PrintRequestAttributeSet mAttributeSet;
+    private PageRasterCache mPreviewCache = new PageRasterCache(new PageRasterCache.PageRenderer() {
+        public BufferedImage render(int pageIndex, float scale, int resolution) throws Exception {
+            return renderPage(pageIndex, scale);
+        }
+    }, PREVIEW_CACHE_SIZE);
+
+    /**
+     * The memory taken by previously displayed pages. Zoom factors are used as the scale of the cached pages.
+     */
+    private static final long PREVIEW_CACHE_SIZE = 64L * 1024 * 1024;
+    private static final int PREVIEW_RESOLUTION = 72;
 
     /**
      * Creates a new instance of PrintPreviewDialog for the given printable object. Since this object
@@ -206,29 +217,55 @@ public class PrintPreviewDialog extends JFrame {
 
     /**
      * Renders the current page index of the document to image based on the current zoom factor and displays it on a JScrollPane.
+     * Pages that were already displayed at the same zoom factor are taken from the preview cache.
      */
     private int renderImageAndDisplay() {
         // Set the progress bar to loading.
         progressBar.setVisible(true);
         progressBar.setIndeterminate(true);
-        BufferedImage img = null;
-        Graphics2D g;
-
-        // The zoom factor currently selected.
-        double zoomModifier = getCurrentZoomModifier();
+        BufferedImage img;
 
         // Clear the current image.
         imageLabel.setIcon(null);
 
-        int result;
+        try {
+            img = mPreviewCache.getPage(mCurrentPage - 1, (float) getCurrentZoomModifier(), PREVIEW_RESOLUTION);
+        } catch (Exception e) {
+            // We'll end up here if there is a problem with rendering or we have gone past the valid page range.
+            // Display a blank page and return the result so we know we have gone past the last page.
+            return Printable.NO_SUCH_PAGE;
+        } finally {
+            // Hide the progress bar.
+            progressBar.setVisible(false);
+        }
 
+        if (img == null)
+            return Printable.NO_SUCH_PAGE;
+
+        // We must re-size the image label so scrolling works properly.
+        imageLabel.setPreferredSize(new Dimension(img.getWidth(), img.getHeight()));
+        imageLabel.setMinimumSize(new Dimension(img.getWidth(), img.getHeight()));
+        imageLabel.setMaximumSize(new Dimension(img.getWidth(), img.getHeight()));
+
+        // Display the rendered page.
+        imageLabel.setIcon(new ImageIcon(img));
+
+        return Printable.PAGE_EXISTS;
+    }
+
+    /**
+     * Renders a page of the pageable or printable object to an image at the given zoom factor.
+     * Returns null if the page is past the end of the document.
+     */
+    private BufferedImage renderPage(int pageIndex, double zoomModifier) throws Exception {
         // Find the format of the current page from either the current pageable or printable object we are printing with.
-        PageFormat format = mPageableDoc != null ? mPageableDoc.getPageFormat(mCurrentPage - 1) : mPageFormat;
+        PageFormat format = mPageableDoc != null ? mPageableDoc.getPageFormat(pageIndex) : mPageFormat;
 
-        try {
-            img = new BufferedImage((int) (format.getWidth() * zoomModifier), (int) (format.getHeight() * zoomModifier), BufferedImage.TYPE_INT_RGB);
-            g = img.createGraphics();
+        BufferedImage img = new BufferedImage((int) (format.getWidth() * zoomModifier), (int) (format.getHeight() * zoomModifier), BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = img.createGraphics();
+        int result;
 
+        try {
             // Fill the background white and add a black border.
             g.setColor(Color.WHITE);
             g.fillRect(0, 0, img.getWidth(), img.getHeight());
@@ -238,29 +275,16 @@ public class PrintPreviewDialog extends JFrame {
             // Scale based on zoom factor.
             g.scale(zoomModifier, zoomModifier);
 
-            // We must re-size the image label so scrolling works properly.
-            imageLabel.setPreferredSize(new Dimension(img.getWidth(), img.getHeight()));
-            imageLabel.setMinimumSize(new Dimension(img.getWidth(), img.getHeight()));
-            imageLabel.setMaximumSize(new Dimension(img.getWidth(), img.getHeight()));
-
             // Call the pageable or printable class to render the specified page onto our image object.
             if (mPageableDoc != null)
-                result = mPageableDoc.getPrintable(mCurrentPage - 1).print(g, format, mCurrentPage - 1);
+                result = mPageableDoc.getPrintable(pageIndex).print(g, format, pageIndex);
             else
-                result = mPrintableDoc.print(g, format, mCurrentPage - 1);
-        } catch (Exception e) {
-            // We'll end up here if there is a problem with rendering or we have gone past the valid page range.
-            // Display a blank page and return the result so we know we have gone past the last page.
-            return Printable.NO_SUCH_PAGE;
+                result = mPrintableDoc.print(g, format, pageIndex);
         } finally {
-            // Hide the progress bar.
-            progressBar.setVisible(false);
+            g.dispose();
         }
 
-        // Display the rendered page.
-        imageLabel.setIcon(new ImageIcon(img));
-
-        return result;
+        return (result == Printable.PAGE_EXISTS) ? img : null;
     }
 
     /**
@@ -443,6 +467,9 @@ public class PrintPreviewDialog extends JFrame {
         // Print using the new page format.
         mPrintJob.setPrintable(mPrintableDoc, mPageFormat);
 
+        // The cached pages were rendered with the old page format.
+        mPreviewCache.invalidate();
+
         // Update the preview of the new settings.
         updateCurrentPage();
     }
@@ -0,0 +1,45 @@
+package com.aspose.words.examples.rendering_printing;
+
+import com.aspose.words.Document;
+import com.aspose.words.NodeType;
+import com.aspose.words.Paragraph;
+import com.aspose.words.examples.Utils;
+
+public class ReadPageLayout {
+
+	private static final String dataDir = Utils.getDataDir(DocumentPreviewAndPrint.class);
+
+	public static void main(String[] args) throws Exception {
+		// Read the lines of one page without building the layout entities of the other pages.
+		readOnePage();
+
+		// Find the pages and lines a paragraph is laid out on.
+		findLayoutOfParagraph();
+	}
+
+	public static void readOnePage() throws Exception {
+		//ExStart:ReadOnePageLazily
+		Document doc = new Document(dataDir + "TestFile.doc");
+
+		// In lazy mode only a handle is created for every page. The columns, lines and spans of a page are built
+		// when the page is first accessed, so reading a few pages of a long document is fast.
+		RenderedDocument layoutDoc = new RenderedDocument(doc, true);
+
+		RenderedPage page = layoutDoc.getPages().getLast();
+		System.out.println("Text of page " + page.getPageIndex() + ":");
+		System.out.println(page.getText());
+		//ExEnd:ReadOnePageLazily
+	}
+
+	public static void findLayoutOfParagraph() throws Exception {
+		//ExStart:FindLayoutOfParagraph
+		Document doc = new Document(dataDir + "TestFile.doc");
+		RenderedDocument layoutDoc = new RenderedDocument(doc, true);
+
+		// The entities of a node are looked up in an index, only the pages the paragraph is on are built.
+		Paragraph paragraph = (Paragraph) doc.getChild(NodeType.PARAGRAPH, 0, true);
+		for (LayoutEntity entity : layoutDoc.GetLayoutEntitiesOfNode(paragraph))
+			System.out.println("Page " + entity.getPageIndex() + ": " + entity.getText().trim());
+		//ExEnd:FindLayoutOfParagraph
+	}
+}
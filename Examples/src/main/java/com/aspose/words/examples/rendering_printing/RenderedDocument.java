@@ -5,6 +5,7 @@ import com.aspose.words.LayoutCollector;
 import com.aspose.words.LayoutEntityType;
 import com.aspose.words.LayoutEnumerator;
 import com.aspose.words.Node;
+import com.aspose.words.NodeCollection;
 import com.aspose.words.NodeType;
 import com.aspose.words.Row;
 
@@ -19,12 +20,35 @@ public class RenderedDocument extends LayoutEntity
 		 * @throws Exception 
 		*/
 		public RenderedDocument(Document doc) throws Exception
+		{
+			this(doc, false);
+		}
+
+		/** 
+		 Creates a new instance from the supplied Aspose.Words.Document class.
+		 
+		 @param document A document whose page layout model to enumerate.
+		 @param isLazy When true, only a handle is created for every page and the columns, lines and spans of a page
+		 are built the first time the page is accessed. Use it to look at a few pages of a large document.
+		 * @throws Exception 
+		*/
+		public RenderedDocument(Document doc, boolean isLazy) throws Exception
 		{
 			mLayoutCollector = new LayoutCollector(doc);
 			mEnumerator = new LayoutEnumerator(doc);
-			ProcessLayoutElements(this);
-			CollectLinesAndAddToMarkers();
-			LinkLayoutMarkersToNodes(doc);
+			mIsLazy = isLazy;
+
+			if (isLazy)
+			{
+				AddPageHandles();
+			}
+			else
+			{
+				ProcessLayoutElements(this);
+				CollectLinesAndAddToMarkers();
+				LinkLayoutMarkersToNodes(doc);
+				IndexEntities(this);
+			}
 		}
 
 		/** 
@@ -39,8 +63,10 @@ public class RenderedDocument extends LayoutEntity
 		 Returns all the layout entities of the specified node.
 		 
 		 Note that this method does not work with Run nodes or nodes in the header or footer.
+		 The entities are looked up in an index that is built together with the layout entities.
+		 In lazy mode only the pages that the node spans are built.
 		*/
-		public final LayoutCollection<LayoutEntity> GetLayoutEntitiesOfNode(Node node)
+		public final LayoutCollection<LayoutEntity> GetLayoutEntitiesOfNode(Node node) throws Exception
 		{
 			if (mLayoutCollector.getDocument() != node.getDocument())
 			{
@@ -52,54 +78,319 @@ public class RenderedDocument extends LayoutEntity
 				return new LayoutCollection<LayoutEntity>(mChildEntities);
 			}
 
-			java.util.ArrayList<LayoutEntity> entities = new java.util.ArrayList<LayoutEntity>();
-			for (LayoutEntity entity : GetChildEntities(~LayoutEntityType.NONE, true))
+			if (mIsLazy)
+			{
+				MaterializePagesOfNode(node);
+			}
+
+			return new LayoutCollection<LayoutEntity>(GetIndexedEntities(node));
+		}
+
+		/** 
+		 Returns the layout entities of every node in the collection. The result is keyed by node identity.
+		*/
+		@SuppressWarnings("unchecked")
+		public final java.util.Map<Node, LayoutCollection<LayoutEntity>> GetLayoutEntitiesOfNodes(NodeCollection nodes) throws Exception
+		{
+			java.util.IdentityHashMap<Node, LayoutCollection<LayoutEntity>> entities = new java.util.IdentityHashMap<Node, LayoutCollection<LayoutEntity>>();
+			for (Node node : (Iterable<Node>)nodes)
+			{
+				entities.put(node, GetLayoutEntitiesOfNode(node));
+			}
+
+			return entities;
+		}
+
+		/** 
+		 Builds the pages that the node spans.
+		*/
+		private void MaterializePagesOfNode(Node node) throws Exception
+		{
+			int startPage = mLayoutCollector.getStartPageIndex(node);
+			int endPage = mLayoutCollector.getEndPageIndex(node);
+
+			// The node has no layout, e.g. it is in the header or footer. Build all pages.
+			if (startPage == 0)
+			{
+				startPage = 1;
+				endPage = mChildEntities.size();
+			}
+
+			for (int pageIndex = startPage; pageIndex <= endPage; pageIndex++)
+			{
+				mChildEntities.get(pageIndex - 1).EnsureChildEntities();
+			}
+		}
+
+		private synchronized java.util.ArrayList<LayoutEntity> GetIndexedEntities(Node node)
+		{
+			java.util.ArrayList<LayoutEntity> entities = mNodeEntities.get(node);
+			return (entities == null) ? new java.util.ArrayList<LayoutEntity>() : new java.util.ArrayList<LayoutEntity>(entities);
+		}
+
+		/** 
+		 Adds the descendants of the entity to the index of entities by node.
+		 An entity is indexed under its parent node, and a row is also indexed under its table.
+		*/
+		private void IndexEntities(LayoutEntity parent)
+		{
+			LayoutEntityCursor cursor = parent.CreateCursor(~LayoutEntityType.NONE);
+			while (cursor.moveNext())
+			{
+				IndexEntity(cursor.getCurrent());
+			}
+		}
+
+		/** 
+		 The node of an entity is found through its first line, so an entity without lines has no node and is not indexed.
+		*/
+		private void IndexEntity(LayoutEntity entity)
+		{
+			AddIndexedEntity(entity.getParentNode(), entity);
+
+			if (entity.getType() == LayoutEntityType.ROW)
+			{
+				AddIndexedEntity(((RenderedRow)entity).getTable(), entity);
+			}
+		}
+
+		/** 
+		 Keeps the entities of a node in page order, also when lazy pages are built out of order.
+		*/
+		private void AddIndexedEntity(Node node, LayoutEntity entity)
+		{
+			if (node == null)
+			{
+				return;
+			}
+
+			java.util.ArrayList<LayoutEntity> entities = mNodeEntities.get(node);
+			if (entities == null)
+			{
+				entities = new java.util.ArrayList<LayoutEntity>(1);
+				mNodeEntities.put(node, entities);
+			}
+
+			int index = entities.size();
+			while (index > 0 && entities.get(index - 1).getPageIndex() > entity.getPageIndex())
+			{
+				index--;
+			}
+
+			entities.add(index, entity);
+		}
+
+		/** 
+		 Creates a page without children for every page of the layout model. The enumerator is positioned at the first page.
+		*/
+		private void AddPageHandles() throws Exception
+		{
+			do
+			{
+				RenderedPage page = (RenderedPage)AddChildEntity(mEnumerator);
+				page.mPendingDocument = this;
+			} while (mEnumerator.moveNext());
+		}
+
+		/** 
+		 Builds the child entities of a page created by AddPageHandles and links its lines and spans to the document nodes.
+		 The enumerator is shared by all pages, so pages are built one at a time.
+		*/
+		final synchronized void MaterializePage(RenderedPage page)
+		{
+			// Another thread has built the page while this one was waiting.
+			if (page.mPendingDocument == null)
+			{
+				return;
+			}
+
+			try
 			{
-				try
+				mEnumerator.setCurrent(page.getLayoutObject());
+				if (mEnumerator.moveFirstChild())
 				{
-					// Retrieve all entities from the layout document (inversion of LayoutEntityType.None).
+					ProcessLayoutElements(page);
+				}
 
-					if (entity.getParentNode() == node)
-					{
-						entities.add(entity);
-					}
+				LinkLinesAndSpansOfPage(page);
+			}
+			catch (Exception e)
+			{
+				page.mChildEntities.clear();
+				throw new IllegalStateException("Cannot build the layout entities of page " + page.getPageIndex() + ".", e);
+			}
 
-					if (entity.getType() == LayoutEntityType.ROW)
+			page.mPendingDocument = null;
+
+			// Parent nodes of columns and rows are found through their lines, so the page is indexed once it is complete.
+			IndexEntity(page);
+			IndexEntities(page);
+		}
+
+		/** 
+		 Does for a single page what CollectLinesAndAddToMarkers and LinkLayoutMarkersToNodes do for the whole document.
+		 Lines are collected until a span that marks the end of a paragraph or row, and are then linked to that node.
+		 Lines at the end of the page that are not followed by a marker belong to the node that continues on the next page.
+		*/
+		private void LinkLinesAndSpansOfPage(RenderedPage page) throws Exception
+		{
+			if (mMarkerNodes == null)
+			{
+				mMarkerNodes = CollectMarkerNodes();
+			}
+
+			for (LayoutEntity story : page.mChildEntities)
+			{
+				if (story.getType() != LayoutEntityType.COLUMN && story.getType() != LayoutEntityType.COMMENT)
+				{
+					continue;
+				}
+
+				java.util.ArrayList<RenderedLine> lines = new java.util.ArrayList<RenderedLine>();
+				CollectLines(story, lines);
+
+				java.util.ArrayList<RenderedLine> collectedLines = new java.util.ArrayList<RenderedLine>();
+				for (RenderedLine line : lines)
+				{
+					collectedLines.add(line);
+					for (LayoutEntity entity : line.mChildEntities)
 					{
-						RenderedRow row = (RenderedRow)entity;
-						if (row.getTable() == node)
+						if (entity.getType() != LayoutEntityType.SPAN)
 						{
-							entities.add(entity);
+							continue;
 						}
-					}
 
+						RenderedSpan span = (RenderedSpan)entity;
+						Node node = mMarkerNodes.get(span.getLayoutObject());
+						if (IsLineMarker(span.getKind()))
+						{
+							LinkLinesToNode(collectedLines, node);
+							collectedLines = new java.util.ArrayList<RenderedLine>();
+						}
+						else if (node != null)
+						{
+							span.setParentNode(node);
+						}
+					}
 				}
-				catch (RuntimeException ex)
+
+				if (!collectedLines.isEmpty())
 				{
+					LinkLinesToNode(collectedLines, FindNextLineMarkerNode(collectedLines.get(collectedLines.size() - 1)));
+				}
+			}
+		}
 
-					throw ex;
+		/** 
+		 Follows the layout model in logical order from the end of the line to the next paragraph or row marker, which may be on a later page.
+		*/
+		private Node FindNextLineMarkerNode(RenderedLine line) throws Exception
+		{
+			if (line.mChildEntities.isEmpty())
+			{
+				return null;
+			}
+
+			mEnumerator.setCurrent(line.mChildEntities.get(line.mChildEntities.size() - 1).getLayoutObject());
+			while (mEnumerator.moveNextLogical())
+			{
+				if (mEnumerator.getType() == LayoutEntityType.SPAN && IsLineMarker(mEnumerator.getKind()))
+				{
+					return mMarkerNodes.get(mEnumerator.getCurrent());
 				}
 			}
 
-			return new LayoutCollection<LayoutEntity>(entities);
+			return null;
 		}
 
-		private void ProcessLayoutElements(LayoutEntity current) throws Exception
+		private static void CollectLines(LayoutEntity entity, java.util.ArrayList<RenderedLine> lines)
 		{
-					do
+			LayoutEntityCursor cursor = entity.CreateCursor(LayoutEntityType.LINE);
+			while (cursor.moveNext())
+			{
+				lines.add((RenderedLine)cursor.getCurrent());
+			}
+		}
+
+		private static void LinkLinesToNode(java.util.ArrayList<RenderedLine> lines, Node node)
+		{
+			if (node == null)
+			{
+				return;
+			}
+
+			switch (node.getNodeType())
+			{
+				case NodeType.PARAGRAPH:
+					for (RenderedLine line : lines)
 					{
-						LayoutEntity child = current.AddChildEntity(mEnumerator);
+						line.setParentNode(node);
+					}
+					break;
 
-						if (mEnumerator.moveFirstChild())
-						{
-							current = child;
+				case NodeType.ROW:
+					for (RenderedLine line : lines)
+					{
+						line.setParentNode(((Row)node).getLastCell().getLastParagraph());
+					}
+					break;
+			}
+		}
 
-							ProcessLayoutElements(current);
-							mEnumerator.moveParent();
+		private static boolean IsLineMarker(String kind)
+		{
+			return kind.equals("PARAGRAPH") || kind.equals("ROW") || kind.equals("CELL") || kind.equals("SECTION");
+		}
 
-							current = current.getParent();
-						}
-					} while (mEnumerator.moveNext());
+		/** 
+		 Maps the layout object of every node that has one to the node. The map is built once, when the first page is built.
+		*/
+		@SuppressWarnings("unchecked")
+		private java.util.HashMap<Object, Node> CollectMarkerNodes() throws Exception
+		{
+			java.util.HashMap<Object, Node> markerNodes = new java.util.HashMap<Object, Node>();
+			for (Node node : (Iterable<Node>)mLayoutCollector.getDocument().getChildNodes(NodeType.ANY, true))
+			{
+				Object entity = mLayoutCollector.getEntity(node);
+				if (entity != null)
+				{
+					markerNodes.put(entity, node);
+				}
+			}
+
+			return markerNodes;
+		}
+
+		/** 
+		 Adds the entity the enumerator is positioned at, its siblings and all their descendants to the parent entity.
+		 The layout tree is walked with the enumerator itself instead of recursion, so deep layouts such as nested
+		 tables in text boxes do not overflow the stack. The enumerator ends up at the last sibling.
+		*/
+		private void ProcessLayoutElements(LayoutEntity parent) throws Exception
+		{
+			LayoutEntity current = parent;
+			while (true)
+			{
+				LayoutEntity child = current.AddChildEntity(mEnumerator);
+
+				if (mEnumerator.moveFirstChild())
+				{
+					current = child;
+					continue;
+				}
+
+				// Go up until a level that has a next sibling.
+				while (!mEnumerator.moveNext())
+				{
+					if (current == parent)
+					{
+						return;
+					}
+
+					mEnumerator.moveParent();
+					current = current.getParent();
+				}
+			}
 		}
 
 				private void CollectLinesAndAddToMarkers()
@@ -188,6 +479,9 @@ public class RenderedDocument extends LayoutEntity
 				
 		private LayoutCollector mLayoutCollector;
 		private LayoutEnumerator mEnumerator;
+		private boolean mIsLazy;
+		private java.util.HashMap<Object, Node> mMarkerNodes;
+		private final java.util.IdentityHashMap<Node, java.util.ArrayList<LayoutEntity>> mNodeEntities = new java.util.IdentityHashMap<Node, java.util.ArrayList<LayoutEntity>>();
 		private static java.util.HashMap<Object, java.util.ArrayList<RenderedLine>> mLayoutToLinesLookup = new java.util.HashMap<Object, java.util.ArrayList<RenderedLine>>();
 		private static java.util.HashMap<Object, RenderedSpan> mLayoutToSpanLookup = new java.util.HashMap<Object, RenderedSpan>();
 }
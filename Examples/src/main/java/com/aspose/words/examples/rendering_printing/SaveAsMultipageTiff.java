@@ -1,6 +1,9 @@
 
 package com.aspose.words.examples.rendering_printing;
 
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+
 import com.aspose.words.Document;
 import com.aspose.words.ImageSaveOptions;
 import com.aspose.words.SaveFormat;
@@ -29,6 +32,20 @@ public class SaveAsMultipageTiff {
 		options.setResolution(160);
 		doc.save(dataDir + "TestFileWithOptions Out.tiff", options);
 		//ExEnd:ImageSaveOptions
+
+		//ExStart:MultipageTiffWriter
+		// Render and compress the pages on all cores and write every page to the file as soon as it is ready.
+		ImageSaveOptions faxOptions = new ImageSaveOptions(SaveFormat.TIFF);
+		faxOptions.setTiffCompression(TiffCompression.CCITT_4);
+		faxOptions.setResolution(200);
+
+		OutputStream stream = new FileOutputStream(dataDir + "TestFileStreamed Out.tiff");
+		try {
+			new MultipageTiffWriter(doc, Runtime.getRuntime().availableProcessors()).save(stream, faxOptions);
+		} finally {
+			stream.close();
+		}
+		//ExEnd:MultipageTiffWriter
 		
 		System.out.println("Document saved as multi page TIFF successfully.");
 	}
@@ -22,6 +22,9 @@ public class SpecifyTrueTypeFontsLocation {
 		
 		// Specifying Fonts to be Read from both the System Fonts Folder and a Custom Folder
 		specifyFontsFromBothSystemFontsFolderAndCustomFolder();
+
+		// Sharing Font Folders Between Documents
+		shareFontFoldersBetweenDocuments();
 	}
 
 	public static void specifyAFontFolder() throws Exception {
@@ -74,4 +77,22 @@ public class SpecifyTrueTypeFontsLocation {
 		doc.save(dataDir + "Rendering.SpecifyFontsToBeReadFromBothSystemFontsFolderAndCustomFolder_Out.pdf");
 		//ExEnd:SpecifyFontsFromBothSystemFontsFolderAndCustomFolder
 	}
+
+	public static void shareFontFoldersBetweenDocuments() throws Exception {
+		//ExStart:ShareFontFoldersBetweenDocuments
+		// The fonts are read once per process, and the folders are listed again only when they have changed.
+		// Adding the same folder again does nothing, so this can be done for every document that is converted.
+		FontRegistry fontRegistry = FontRegistry.getInstance();
+		fontRegistry.addFolder("/Users/username/MyFonts/", true);
+
+		for (int i = 0; i < 3; i++) {
+			Document doc = new Document(dataDir + "Rendering.doc");
+
+			// All documents use the same font settings, so every font is read only once.
+			fontRegistry.applyTo(doc);
+
+			doc.save(dataDir + "Rendering.ShareFontFoldersBetweenDocuments" + i + "_Out.pdf");
+		}
+		//ExEnd:ShareFontFoldersBetweenDocuments
+	}
 }